@@ -0,0 +1,158 @@
+package escapegame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import escapegame.GameEngine.TileType;
+
+import java.awt.event.KeyEvent;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the parts of GameEngine that run every level or every
+ * turn: creating a level, finding spawn positions, moving seekers and chasers,
+ * and a whole turn. Spawning seekers is in SpawnBenchmark as it needs the
+ * level reset between calls. Each is run for several level sizes and monster
+ * counts. Run with -prof gc to see the allocation rate as well.
+ *
+ * The monsters are spawned again across the level before every iteration so
+ * that they are not all already standing next to the player. The turn
+ * benchmark steps the player back and forth, so the path to the player has
+ * to be worked out again on the turns that update it, as it does in a game.
+ *
+ * Usage: mvn -B -Pbench package and java -jar target/benchmarks.jar EngineBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    /**
+     * The size of the level as width x height.
+     */
+    @Param({"25x18", "100x100", "400x400"})
+    public String size;
+
+    /**
+     * The number of seekers, and for the chaser and turn benchmarks the number
+     * of chasers as well.
+     */
+    @Param({"5", "25", "100"})
+    public int monsters;
+
+    /**
+     * The engine being measured. It is given a new game for every trial.
+     */
+    private GameEngine engine;
+
+    /**
+     * The two keys the player is moved with in turn, one stepping away from
+     * the start tile and one stepping back, and which of them is next.
+     */
+    private final int[] keys = new int[2];
+    private int nextKey;
+
+    /**
+     * Creates an engine with a level of the chosen size, and picks a
+     * direction the player can step in from where it starts.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = createEngine(size, monsters);
+        Human player = engine.getPlayer();
+        TileGrid tiles = engine.getTiles();
+        int[][] pairs = {{KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, -1, 0}, {KeyEvent.VK_RIGHT, KeyEvent.VK_LEFT, 1, 0},
+                {KeyEvent.VK_UP, KeyEvent.VK_DOWN, 0, -1}, {KeyEvent.VK_DOWN, KeyEvent.VK_UP, 0, 1}};
+        for (int[] pair : pairs) {
+            int x = player.getX() + pair[2];
+            int y = player.getY() + pair[3];
+            if (tiles.contains(x, y) && tiles.get(x, y) != TileType.WALL) {
+                keys[0] = pair[0];
+                keys[1] = pair[1];
+                return;
+            }
+        }
+        throw new IllegalStateException("The player cannot move from " + player.getX() + "," + player.getY());
+    }
+
+    /**
+     * Removes the monsters and spawns the chosen number of seekers and chasers
+     * at random open tiles, then plays a few turns so that the path to the
+     * player has been worked out.
+     */
+    @Setup(Level.Iteration)
+    public void respawn() {
+        engine.resetSpawns();
+        engine.spawnSeekers();
+        SpawnPool spawns = engine.getSpawns();
+        Random rng = new Random(911);
+        for (int i = 0; i < monsters; i++) {
+            int cell = spawns.take(rng);
+            engine.getMonsters().add(MonsterStore.CHASER, spawns.getX(cell), spawns.getY(cell));
+        }
+        for (int i = 0; i < 10; i++) {
+            engine.doTurn();
+        }
+    }
+
+    /**
+     * Creates a seeded engine and starts a game on it.
+     * @param size The size of the level as width x height
+     * @param seekers The number of seekers in the level
+     * @return the engine
+     */
+    static GameEngine createEngine(String size, int seekers) {
+        String[] parts = size.split("x");
+        GameEngine engine = new GameEngine(new HeadlessDisplay(), Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), 911);
+        engine.setNumSeekers(seekers);
+        engine.startGame();
+        return engine;
+    }
+
+    @Benchmark
+    public TileGrid generateLevel() {
+        return engine.generateLevel();
+    }
+
+    @Benchmark
+    public SpawnPool getSpawns() {
+        return engine.getSpawns();
+    }
+
+    @Benchmark
+    public MonsterStore moveSeekers() {
+        engine.moveSeekers();
+        return engine.getMonsters();
+    }
+
+    @Benchmark
+    public MonsterStore moveChasers() {
+        engine.moveChasers();
+        return engine.getMonsters();
+    }
+
+    /**
+     * Steps the player and plays the turn that follows, as a key press does.
+     * @return the engine, so that the turn is not optimised away
+     */
+    @Benchmark
+    public GameEngine doTurn() {
+        engine.handleKey(keys[nextKey]);
+        nextKey ^= 1;
+        return engine;
+    }
+}
@@ -0,0 +1,109 @@
+package escapegame;
+
+import escapegame.GameEngine.TileType;
+
+import java.util.Random;
+
+/**
+ * Compares updating a FlowField limited to GameEngine.PATH_RADIUS as the
+ * player walks one tile at a time with working the field out over the whole
+ * level each step, as the engine used to. Levels are filled at random with
+ * walls at the given density and the target takes a random open step each
+ * time. The bounded field is checked against the full one, tile by tile
+ * within the radius, so that the timings are only reported for correct
+ * results.
+ *
+ * Usage: FlowFieldBenchmark [size ...]
+ */
+public class FlowFieldBenchmark {
+
+    /**
+     * The number of steps taken on a 256x256 level. Larger levels take fewer
+     * steps so that each run takes about the same time.
+     */
+    private static final int STEPS = 2000;
+    private static final double[] WALL_DENSITIES = {0.05, 0.30};
+
+    public static void main(String[] args) {
+        int[] sizes = {256, 1024, 4096};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.printf("%-6s %-6s %14s %14s %8s%n", "size", "walls", "full us/op", "bounded us/op", "speedup");
+        for (int size : sizes) {
+            for (double density : WALL_DENSITIES) {
+                run(size, density);
+            }
+        }
+    }
+
+    /**
+     * Runs one comparison and prints a line of results.
+     * @param size The width and height of the level
+     * @param density The fraction of tiles that are walls
+     */
+    private static void run(int size, double density) {
+        Random rng = new Random(size * 31L + (long) (density * 100));
+        TileGrid tiles = new TileGrid(size, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                tiles.set(x, y, rng.nextDouble() < density ? TileType.WALL : TileType.DIRT);
+            }
+        }
+        int x = size / 2;
+        int y = size / 2;
+        tiles.set(x, y, TileType.DIRT);
+
+        FlowField full = new FlowField(size, size);
+        FlowField bounded = new FlowField(size, size, GameEngine.PATH_RADIUS);
+        int steps = Math.max(20, (int) (STEPS * 65536L / ((long) size * size)));
+        int checkEvery = Math.max(1, steps / 20);
+        long fullNanos = 0;
+        long boundedNanos = 0;
+        for (int step = 0; step < steps; step++) {
+            int direction = rng.nextInt(4);
+            int nextX = x + (direction == 0 ? -1 : direction == 1 ? 1 : 0);
+            int nextY = y + (direction == 2 ? -1 : direction == 3 ? 1 : 0);
+            if (tiles.contains(nextX, nextY) && tiles.get(nextX, nextY) != TileType.WALL) {
+                x = nextX;
+                y = nextY;
+            }
+            long start = System.nanoTime();
+            bounded.update(tiles, x, y);
+            boundedNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            full.update(tiles, x, y);
+            fullNanos += System.nanoTime() - start;
+
+            if (step % checkEvery == 0) {
+                check(full, bounded, x, y);
+            }
+        }
+        System.out.printf("%-6d %-6.2f %14.1f %14.1f %7.1fx%n", size, density,
+                fullNanos / 1000.0 / steps, boundedNanos / 1000.0 / steps, (double) fullNanos / Math.max(1, boundedNanos));
+    }
+
+    /**
+     * Stops the benchmark if the bounded field differs from the full one at
+     * any tile within the radius of the target.
+     */
+    private static void check(FlowField full, FlowField bounded, int targetX, int targetY) {
+        int radius = GameEngine.PATH_RADIUS;
+        for (int y = targetY - radius; y <= targetY + radius; y++) {
+            for (int x = targetX - radius; x <= targetX + radius; x++) {
+                int expected = full.getDistance(x, y);
+                if (expected > radius) {
+                    expected = FlowField.UNREACHABLE;
+                }
+                if (bounded.getDistance(x, y) != expected) {
+                    throw new IllegalStateException("Bounded field differs at " + x + "," + y + ": "
+                            + bounded.getDistance(x, y) + " != " + expected);
+                }
+            }
+        }
+    }
+}
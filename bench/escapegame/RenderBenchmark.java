@@ -0,0 +1,186 @@
+package escapegame;
+
+import escapegame.GameEngine.TileType;
+
+import javax.swing.JFrame;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Measures how long the Canvas takes to draw a frame and how much memory it
+ * allocates doing so. The canvas paints into a BufferedImage rather than a
+ * window, using levels filled with random tiles and monsters placed at random,
+ * for several window sizes and numbers of monsters. Three cases are timed:
+ * painting the same frame again, scrolling as the player walks across the
+ * level, and painting with the game over overlay shown.
+ *
+ * Painting is meant to allocate nothing once the canvas has drawn its first
+ * frames, so that the garbage collector never pauses the game mid frame.
+ * Passing check as the first argument runs every case and fails with an
+ * AssertionError if any of them allocates.
+ *
+ * By default the benchmark runs headless, so the sprites are drawn from plain
+ * compatible images and the VolatileImage copies a SpriteCache makes for a
+ * screen, with their validate and contentsLost checks, are not used. Passing
+ * screen as the last argument on a machine with a display puts each canvas in
+ * a window, which is never shown, and paints into a VolatileImage for the
+ * screen so that those checks are measured too.
+ *
+ * Usage: RenderBenchmark [frames | check] [screen]
+ */
+public class RenderBenchmark {
+
+    /**
+     * The window sizes measured, in tiles, as columns and rows.
+     */
+    private static final int[][] VIEWS = {{25, 18}, {50, 36}, {100, 72}};
+    private static final int[] MONSTERS = {10, 200};
+
+    /**
+     * The number of frames drawn for a 25x18 window. Larger windows draw fewer
+     * frames so that each case takes about the same time.
+     */
+    private static final int FRAMES = 2000;
+
+    /**
+     * The number of times each case is run before the run that is measured,
+     * so that the JIT compiler has finished with the paint path. More are
+     * needed to check for allocations than to time it, as code that has not
+     * been compiled yet allocates where the compiled code does not.
+     */
+    private static final int WARMUP = 1;
+    private static final int CHECK_WARMUP = 10;
+
+    /**
+     * Used to read the number of bytes allocated by the current thread.
+     */
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        boolean screen = args.length > 0 && args[args.length - 1].equals("screen");
+        if (!screen) {
+            System.setProperty("java.awt.headless", "true");
+        } else if (GraphicsEnvironment.isHeadless()) {
+            System.out.println("There is no display to draw for, run without screen instead");
+            return;
+        }
+        boolean check = args.length > 0 && args[0].equals("check");
+        int frames = args.length > 0 && !check && !args[0].equals("screen") ? Integer.parseInt(args[0]) : FRAMES;
+        System.out.printf("%-9s %-9s %-10s %10s %12s%n", "view", "monsters", "case", "ms/frame", "bytes/frame");
+        int warmup = check ? CHECK_WARMUP : WARMUP;
+        int allocating = 0;
+        for (int[] view : VIEWS) {
+            for (int monsters : MONSTERS) {
+                int count = Math.max(50, frames * 25 * 18 / (view[0] * view[1]));
+                for (String name : new String[]{"still", "scrolling", "overlay"}) {
+                    if (run(view[0], view[1], monsters, name, count, warmup, screen) > 0) {
+                        allocating++;
+                    }
+                }
+            }
+        }
+        if (check && allocating > 0) {
+            throw new AssertionError(allocating + " cases allocated while painting");
+        }
+    }
+
+    /**
+     * Times one case, first to warm up and then once to measure, and prints
+     * the result.
+     * @param columns The width of the window in tiles
+     * @param rows The height of the window in tiles
+     * @param monsters The number of monsters in the level
+     * @param name The case to run: still, scrolling or overlay
+     * @param count The number of frames to draw
+     * @param warmup The number of runs before the measured one
+     * @param screen Whether to draw for the screen rather than headless
+     * @return the bytes allocated by the measured frames
+     */
+    private static long run(int columns, int rows, int monsters, String name, int count, int warmup, boolean screen) throws Exception {
+        int width = columns * 2;
+        int height = rows * 2;
+        Random rng = new Random(911);
+        TileGrid tiles = randomTiles(width, height, rng);
+        MonsterStore store = new MonsterStore(width, height);
+        for (int i = 0; i < monsters; i++) {
+            store.add(i % 2 == 0 ? MonsterStore.SEEKER : MonsterStore.CHASER, rng.nextInt(width), rng.nextInt(height));
+        }
+        Human player = new Human(100, 0, height / 2);
+        if (name.equals("overlay")) {
+            player.changeHealth(-100);
+        }
+        Fuel fuel = new Fuel(rng.nextInt(width), rng.nextInt(height));
+        Health health = new Health(rng.nextInt(width), rng.nextInt(height));
+
+        Canvas canvas = new Canvas();
+        canvas.setSize(columns * GameGUI.TILE_WIDTH, rows * GameGUI.TILE_HEIGHT);
+        JFrame window = null;
+        Graphics2D g;
+        if (screen) {
+            window = new JFrame();
+            window.add(canvas);
+            GraphicsConfiguration gc = canvas.getGraphicsConfiguration();
+            g = gc.createCompatibleVolatileImage(canvas.getWidth(), canvas.getHeight()).createGraphics();
+        } else {
+            BufferedImage image = new BufferedImage(canvas.getWidth(), canvas.getHeight(), BufferedImage.TYPE_INT_RGB);
+            g = image.createGraphics();
+        }
+        FrameSnapshot[] snapshots = {new FrameSnapshot(), new FrameSnapshot()};
+        snapshots[0].capture(tiles, 0, player, store, fuel, health, false);
+        canvas.update(snapshots[0]);
+
+        boolean scrolling = name.equals("scrolling");
+        double millis = 0;
+        long bytes = 0;
+        for (int pass = 0; pass <= warmup; pass++) {
+            long startBytes = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                if (scrolling) {
+                    player.setPosition(i % width, height / 2);
+                    FrameSnapshot next = snapshots[i % 2];
+                    next.capture(tiles, 0, player, store, fuel, health, false);
+                    canvas.update(next);
+                }
+                canvas.paintComponent(g);
+            }
+            millis = (System.nanoTime() - start) / 1e6 / count;
+            bytes = THREADS.getCurrentThreadAllocatedBytes() - startBytes;
+        }
+        g.dispose();
+        if (window != null) {
+            window.dispose();
+        }
+        System.out.printf("%-9s %-9d %-10s %10.3f %12.1f%n", columns + "x" + rows, monsters, name, millis, (double) bytes / count);
+        return bytes;
+    }
+
+    /**
+     * Creates a level filled with random tiles, with the same mix of tile
+     * types as GameEngine.generateLevel.
+     * @param width The width of the level in tiles
+     * @param height The height of the level in tiles
+     * @param rng The random number generator to use
+     * @return the tiles
+     */
+    private static TileGrid randomTiles(int width, int height, Random rng) {
+        TileGrid tiles = new TileGrid(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int num = rng.nextInt(100);
+                tiles.set(x, y, num < 5 ? TileType.WALL : num < 10 ? TileType.NEST : num < 50 ? TileType.DIRT : TileType.GRASS);
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            tiles.set(x, height / 2 + 1, TileType.ROAD);
+        }
+        tiles.set(width / 2, height / 2 + 1, TileType.CAR);
+        return tiles;
+    }
+}
@@ -0,0 +1,80 @@
+package escapegame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A JMH benchmark for GameEngine.spawnSeekers, for several level sizes and
+ * numbers of seekers. Spawning uses up the spawn positions of the level, and
+ * finding them again takes far longer than spawning, so the positions are
+ * found once before each iteration and every iteration times a single batch
+ * of BATCH calls that take from them. The score is the time for the whole
+ * batch. The smallest level has room for a batch of 100 seekers.
+ *
+ * Usage: mvn -B -Pbench package and java -jar target/benchmarks.jar SpawnBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2000, batchSize = SpawnBenchmark.BATCH)
+@Measurement(iterations = 2000, batchSize = SpawnBenchmark.BATCH)
+@Fork(1)
+public class SpawnBenchmark {
+
+    /**
+     * The number of calls timed in each iteration.
+     */
+    static final int BATCH = 4;
+
+    /**
+     * The size of the level as width x height.
+     */
+    @Param({"25x18", "100x100", "400x400"})
+    public String size;
+
+    /**
+     * The number of seekers spawned.
+     */
+    @Param({"5", "25", "100"})
+    public int monsters;
+
+    /**
+     * The engine being measured.
+     */
+    private GameEngine engine;
+
+    /**
+     * Creates an engine with a level of the chosen size.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = EngineBenchmark.createEngine(size, monsters);
+    }
+
+    /**
+     * Removes the monsters and puts the spawn positions back for the next
+     * batch.
+     */
+    @Setup(Level.Iteration)
+    public void resetSpawns() {
+        engine.resetSpawns();
+    }
+
+    @Benchmark
+    public MonsterStore spawnSeekers() {
+        engine.spawnSeekers();
+        return engine.getMonsters();
+    }
+}
@@ -0,0 +1,87 @@
+package escapegame;
+
+import escapegame.GameEngine.TileType;
+
+import java.awt.event.KeyEvent;
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Plays a game in a 100000 x 100000 streaming world to check that memory use
+ * stays bounded however far the player goes. The engine plays on a window onto
+ * a ChunkedWorld that follows the player. The player takes long straight runs
+ * in random directions, turning in a new one when a wall is in the way, and
+ * turns the nests it walks over into dirt, so changed chunks have to be stored
+ * and read back as the window moves. At the end every tile the player stood
+ * on is checked to no longer be a nest, in the window or in the world. Prints
+ * the time per turn, how far the player got, the chunks generated, dropped,
+ * stored and read back, and the heap in use.
+ *
+ * Usage: WorldBenchmark [turns] [window size] [max chunks in memory]
+ */
+public class WorldBenchmark {
+
+    private static final int SIZE = 100000;
+    private static final int[] KEYS = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_UP, KeyEvent.VK_DOWN};
+
+    public static void main(String[] args) throws Exception {
+        int turns = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int window = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int maxChunks = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        File file = File.createTempFile("world", ".chunks");
+        file.deleteOnExit();
+        ChunkedWorld world = new ChunkedWorld(SIZE, SIZE, 911, maxChunks, 1, file);
+        GameEngine engine = new GameEngine(new HeadlessDisplay(), world, window, window, 911);
+        engine.startGame();
+
+        Random rng = new Random(911);
+        int[] pathX = new int[turns];
+        int[] pathY = new int[turns];
+        int startX = engine.getWorldX() + engine.getPlayer().getX();
+        int startY = engine.getWorldY() + engine.getPlayer().getY();
+        int key = KEYS[0];
+        int moves = 0;
+        int furthest = 0;
+        long start = System.nanoTime();
+        for (int turn = 0; turn < turns; turn++) {
+            if (turn % 500 == 0) {
+                key = KEYS[rng.nextInt(4)];
+            }
+            int lastX = engine.getWorldX() + engine.getPlayer().getX();
+            int lastY = engine.getWorldY() + engine.getPlayer().getY();
+            int lastWorldX = engine.getWorldX();
+            int lastWorldY = engine.getWorldY();
+            engine.handleKey(key);
+            pathX[turn] = engine.getWorldX() + engine.getPlayer().getX();
+            pathY[turn] = engine.getWorldY() + engine.getPlayer().getY();
+            if (pathX[turn] == lastX && pathY[turn] == lastY) {
+                key = KEYS[rng.nextInt(4)];
+            }
+            if (engine.getWorldX() != lastWorldX || engine.getWorldY() != lastWorldY) {
+                moves++;
+            }
+            furthest = Math.max(furthest, Math.abs(pathX[turn] - startX) + Math.abs(pathY[turn] - startY));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        TileGrid tiles = engine.getTiles();
+        for (int turn = turns - 1; turn >= 0; turn--) {
+            int x = pathX[turn] - engine.getWorldX();
+            int y = pathY[turn] - engine.getWorldY();
+            TileType tile = tiles.contains(x, y) ? tiles.get(x, y) : world.get(pathX[turn], pathY[turn]);
+            if (tile == TileType.NEST) {
+                throw new IllegalStateException("Lost the change at " + pathX[turn] + "," + pathY[turn]);
+            }
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.out.printf("%d turns in a %dx%d window at %.1f us/turn, window moved %d times, furthest %d tiles from the start%n",
+                turns, window, window, elapsed / 1000.0 / turns, moves, furthest);
+        System.out.printf("chunks: %d in memory, %d generated, %d dropped, %d stored, %d read back%n",
+                world.getChunksInMemory(), world.getGenerated(), world.getEvicted(), world.getChunksStored(), world.getReloaded());
+        System.out.printf("heap in use: %.1f MB, store file: %.1f MB%n",
+                (runtime.totalMemory() - runtime.freeMemory()) / 1e6, file.length() / 1e6);
+        world.close();
+    }
+}
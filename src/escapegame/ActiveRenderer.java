@@ -0,0 +1,269 @@
+package escapegame;
+
+import java.awt.DisplayMode;
+import java.awt.EventQueue;
+import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The ActiveRenderer class draws the game's window from its own thread at a
+ * steady frame rate, instead of waiting for Swing to repaint the canvas when
+ * the engine publishes a snapshot. Each frame it takes the latest snapshot,
+ * draws the canvas into the window's BufferStrategy and shows it, then waits
+ * until the next frame is due. Because frames are drawn between turns too,
+ * monsters and the player slide smoothly from one tile to the next.
+ *
+ * Frames are due at fixed intervals counted from the first frame, so small
+ * delays do not add up and the frames line up with the screen's refreshes
+ * when the cap matches its refresh rate. The thread sleeps for most of the
+ * wait and only spins for the last moment, as sleeping is not precise. If
+ * drawing falls more than a whole frame behind, the missed frames are
+ * skipped rather than drawn in a burst, and counted as late.
+ *
+ * The thread never asks Swing components for their size or position, which
+ * is only safe on the Swing thread. The canvas copies them into volatile
+ * fields on the Swing thread whenever they change, and the renderer reads
+ * those instead.
+ */
+public class ActiveRenderer implements Runnable {
+
+    /**
+     * The frame rate used when the screen's refresh rate is not known.
+     */
+    public static final int DEFAULT_FPS = 60;
+
+    /**
+     * How long before a frame is due the thread stops sleeping and spins.
+     */
+    private static final long SPIN_NANOS = 1_000_000L;
+
+    /**
+     * The window drawn to and the canvas inside it.
+     */
+    private final GameGUI gui;
+    private final Canvas canvas;
+
+    /**
+     * The time between frames.
+     */
+    private final long frameNanos;
+
+    /**
+     * The buffer the engine last published a snapshot to, or null until it
+     * has published one.
+     */
+    private volatile FrameBuffer frames;
+
+    /**
+     * The time between one frame being shown and the next, the time taken to
+     * draw each frame, and the number of frames that were late.
+     */
+    private final Histogram frameTimes = new Histogram("frame");
+    private final Histogram renderTimes = new Histogram("render");
+    private volatile long lateFrames;
+
+    /**
+     * The thread drawing the frames, or null if it has not been started or
+     * has been stopped.
+     */
+    private volatile Thread thread;
+
+    /**
+     * Creates a renderer for a window. start must be called to begin drawing.
+     * @param gui The window to draw to
+     * @param canvas The canvas inside the window that shows the game
+     * @param fps The most frames to draw per second
+     */
+    ActiveRenderer(GameGUI gui, Canvas canvas, int fps) {
+        this.gui = gui;
+        this.canvas = canvas;
+        this.frameNanos = 1_000_000_000L / Math.max(1, fps);
+    }
+
+    /**
+     * Returns the refresh rate of a screen, so that the frame rate can be
+     * capped to match it.
+     * @param gc The screen, or null if there is none
+     * @return the refresh rate in hertz, or DEFAULT_FPS if it is not known
+     */
+    public static int refreshRate(GraphicsConfiguration gc) {
+        if (gc == null) {
+            return DEFAULT_FPS;
+        }
+        int rate = gc.getDevice().getDisplayMode().getRefreshRate();
+        return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_FPS : rate;
+    }
+
+    /**
+     * Creates the window's BufferStrategy and starts the drawing thread. This
+     * must be called on the Swing thread once the window is visible. From here
+     * until stop returns only the drawing thread takes snapshots from the
+     * FrameBuffer and updates the canvas.
+     * @throws IllegalStateException if called on any other thread
+     */
+    void start() {
+        checkSwingThread();
+        gui.createBufferStrategy(2);
+        canvas.setActive(true);
+        Thread t = new Thread(this, "ActiveRenderer");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    /**
+     * Stops the drawing thread after the frame it is drawing, and hands the
+     * canvas and the FrameBuffer back to Swing. This must be called on the
+     * Swing thread. FrameBuffer.acquire may only be called by one thread at a
+     * time, and from here on the Swing thread calls it again. Waiting for the
+     * drawing thread to finish with join is what makes that safe: once join
+     * returns the drawing thread has made its last call to acquire and to
+     * canvas.update, and everything it wrote is visible to the Swing thread.
+     * Any snapshot shown by Swing is taken by a task queued on the Swing
+     * thread, which cannot run before this method returns.
+     * @throws IllegalStateException if called on any other thread
+     */
+    void stop() {
+        checkSwingThread();
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            boolean interrupted = false;
+            while (t.isAlive()) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        canvas.setActive(false);
+        canvas.repaint();
+    }
+
+    /**
+     * Checks that the caller is on the Swing thread.
+     * @throws IllegalStateException if it is not
+     */
+    private static void checkSwingThread() {
+        if (!EventQueue.isDispatchThread()) {
+            throw new IllegalStateException("Active rendering must be started and stopped on the Swing thread");
+        }
+    }
+
+    /**
+     * Returns the buffer the engine last published a snapshot to, so that
+     * Swing can show it once the renderer has stopped.
+     * @return the buffer, or null if nothing has been published yet
+     */
+    FrameBuffer getFrames() {
+        return frames;
+    }
+
+    /**
+     * Sets the buffer to take snapshots from. Called on the engine's thread
+     * each time it publishes a snapshot.
+     * @param frames The buffer holding the latest snapshot
+     */
+    void setFrames(FrameBuffer frames) {
+        this.frames = frames;
+    }
+
+    /**
+     * Draws frames until the renderer is stopped.
+     */
+    @Override
+    public void run() {
+        BufferStrategy strategy = gui.getBufferStrategy();
+        long due = System.nanoTime();
+        long lastShown = due;
+        while (thread == Thread.currentThread()) {
+            FrameBuffer buffer = frames;
+            if (buffer != null) {
+                FrameSnapshot frame = buffer.acquire();
+                if (frame != null && frame != canvas.frame) {
+                    canvas.update(frame);
+                }
+            }
+            long start = System.nanoTime();
+            draw(strategy, start);
+            long shown = System.nanoTime();
+            renderTimes.record(shown - start);
+            frameTimes.record(shown - lastShown);
+            lastShown = shown;
+
+            due += frameNanos;
+            if (shown - due > frameNanos) {
+                lateFrames++;
+                due = shown;
+            }
+            waitUntil(due);
+        }
+    }
+
+    /**
+     * Draws one frame into the BufferStrategy and shows it, drawing it again
+     * if the strategy's buffers lose their contents in the meantime.
+     * @param strategy The window's BufferStrategy
+     * @param now The time the frame is drawn for
+     */
+    private void draw(BufferStrategy strategy, long now) {
+        int x = canvas.getWindowX();
+        int y = canvas.getWindowY();
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    g.translate(x, y);
+                    g.clipRect(0, 0, canvas.width(), canvas.height());
+                    canvas.render(g, now);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    /**
+     * Waits until a time, sleeping until shortly before it and then spinning.
+     * @param due The time from System.nanoTime to wait until
+     */
+    private static void waitUntil(long due) {
+        long remaining;
+        while ((remaining = due - System.nanoTime()) > 0) {
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of frames that were drawn more than a whole frame
+     * late.
+     * @return the number of late frames
+     */
+    public long getLateFrames() {
+        return lateFrames;
+    }
+
+    /**
+     * Describes the frame times, the time taken to draw each frame and the
+     * number of late frames.
+     * @return the report, in milliseconds
+     */
+    public String getReport() {
+        return String.format("%s%n%s%nframe cap %.1f fps, %d late frames",
+                frameTimes.describe(1_000_000, "ms"), renderTimes.describe(1_000_000, "ms"),
+                1_000_000_000.0 / frameNanos, lateFrames);
+    }
+}
@@ -0,0 +1,91 @@
+package escapegame;
+
+/**
+ * The BatchResult class adds up the outcome of a number of simulated games,
+ * counting how many were won, how many turns the player survived and how many
+ * levels were cleared. Results from different threads are combined with
+ * merge.
+ */
+public class BatchResult {
+
+    /**
+     * The number of games played and won.
+     */
+    private int games = 0;
+    private int wins = 0;
+
+    /**
+     * The total turns survived and levels cleared over all the games.
+     */
+    private long turns = 0;
+    private long levels = 0;
+
+    /**
+     * Adds the outcome of a finished game.
+     * @param engine The engine that played the game
+     */
+    public void add(GameEngine engine) {
+        games++;
+        if (engine.isWon()) {
+            wins++;
+        }
+        turns += engine.getTurnsPlayed();
+        levels += engine.getLevelsCleared();
+    }
+
+    /**
+     * Adds the totals of another result to this one.
+     * @param other The result to add
+     * @return this result
+     */
+    public BatchResult merge(BatchResult other) {
+        games += other.games;
+        wins += other.wins;
+        turns += other.turns;
+        levels += other.levels;
+        return this;
+    }
+
+    /**
+     * Returns the number of games played.
+     * @return the number of games
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the fraction of games that were won.
+     * @return the win rate between 0 and 1, or 0 if no games were played
+     */
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    /**
+     * Returns the average number of turns the player survived, counting games
+     * that were won or stopped at the turn limit as well.
+     * @return the average turns per game
+     */
+    public double getAverageTurns() {
+        return games == 0 ? 0 : (double) turns / games;
+    }
+
+    /**
+     * Returns the average number of levels cleared.
+     * @return the average levels cleared per game
+     */
+    public double getAverageLevels() {
+        return games == 0 ? 0 : (double) levels / games;
+    }
+
+    /**
+     * Describes the result in one line.
+     * @return the games, win rate, average turns and average levels
+     */
+    @Override
+    public String toString() {
+        return String.format("%d games, win rate %.1f%%, %.1f turns survived, %.2f levels cleared",
+                games, getWinRate() * 100, getAverageTurns(), getAverageLevels());
+    }
+}
@@ -0,0 +1,166 @@
+package escapegame;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * The BatchRunner class simulates many games at once to see how changes to
+ * the game, such as the number of seekers, affect how hard it is. Each game
+ * gets its own GameEngine with a HeadlessDisplay, a seed worked out from the
+ * game's number and its own InputPolicy to press keys. The games are split
+ * between the threads of a ForkJoinPool and their results added up in a
+ * BatchResult. Because every game is seeded, running the same batch again
+ * gives the same result however many threads are used.
+ */
+public class BatchRunner {
+
+    /**
+     * The number of games a task plays itself instead of splitting further.
+     */
+    private static final int GAMES_PER_TASK = 4;
+
+    /**
+     * The size of the levels, the number of seekers in the first level and the
+     * number of turns after which a game is stopped if it is still going.
+     */
+    private final int width;
+    private final int height;
+    private final int seekers;
+    private final int maxTurns;
+
+    /**
+     * Creates the input policy for a game from the game's seed.
+     */
+    private final LongFunction<InputPolicy> policies;
+
+    /**
+     * Creates a runner for games with the given settings.
+     * @param width The width of each level, measured in tiles
+     * @param height The height of each level, measured in tiles
+     * @param seekers The number of seekers in the first level
+     * @param maxTurns The number of turns after which a game is stopped
+     * @param policies Creates the input policy for a game from its seed
+     * @throws IllegalArgumentException if the levels are smaller than
+     * GameEngine.MIN_SIZE
+     */
+    public BatchRunner(int width, int height, int seekers, int maxTurns, LongFunction<InputPolicy> policies) {
+        GameEngine.checkSize(width, height);
+        this.width = width;
+        this.height = height;
+        this.seekers = seekers;
+        this.maxTurns = maxTurns;
+        this.policies = policies;
+    }
+
+    /**
+     * Plays a number of games on the given pool and adds up their results.
+     * Game i uses the seed firstSeed + i.
+     * @param games The number of games to play
+     * @param firstSeed The seed of the first game
+     * @param pool The pool to run the games on
+     * @return the combined result of every game
+     */
+    public BatchResult run(int games, long firstSeed, ForkJoinPool pool) {
+        return pool.invoke(new Games(firstSeed, firstSeed + games));
+    }
+
+    /**
+     * Plays a single game until it is won, lost or reaches the turn limit.
+     * @param seed The seed for the engine and the input policy
+     * @return the engine after the game has finished
+     */
+    public GameEngine play(long seed) {
+        GameEngine engine = new GameEngine(new HeadlessDisplay(), width, height, seed);
+        engine.setNumSeekers(seekers);
+        InputPolicy policy = policies.apply(seed);
+        engine.startGame();
+        while (!engine.isWon() && !engine.isLost() && engine.getTurnsPlayed() < maxTurns) {
+            engine.handleKey(policy.nextKey(engine));
+        }
+        return engine;
+    }
+
+    /**
+     * A task that plays the games with seeds from one value up to another,
+     * splitting itself in half until each part is small.
+     */
+    private class Games extends RecursiveTask<BatchResult> {
+
+        /**
+         * Tasks are never serialized, but ForkJoinTask is Serializable.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The seed of the first game and one past the seed of the last game.
+         */
+        private final long from;
+        private final long to;
+
+        /**
+         * Creates a task for the games with seeds from (inclusive) to to
+         * (exclusive).
+         * @param from The first seed
+         * @param to One past the last seed
+         */
+        Games(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Plays the games, or splits them between two smaller tasks.
+         * @return the combined result of the games
+         */
+        @Override
+        protected BatchResult compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                BatchResult result = new BatchResult();
+                for (long seed = from; seed < to; seed++) {
+                    result.add(play(seed));
+                }
+                return result;
+            }
+            long middle = from + (to - from) / 2;
+            Games first = new Games(from, middle);
+            first.fork();
+            BatchResult second = new Games(middle, to).compute();
+            return first.join().merge(second);
+        }
+    }
+
+    /**
+     * Simulates a batch of games and prints the result. The optional arguments
+     * are the number of games, the level width and height, the number of
+     * seekers in the first level, the turn limit and the policy, which is
+     * either "fuel" to walk to the fuel and car or "random" for random arrow
+     * keys.
+     * @param args optional games, width, height, seekers, turn limit and policy
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : GameEngine.GRID_WIDTH;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : GameEngine.GRID_HEIGHT;
+        int seekers = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int maxTurns = args.length > 4 ? Integer.parseInt(args[4]) : 2000;
+        String policy = args.length > 5 ? args[5] : "fuel";
+
+        LongFunction<InputPolicy> policies;
+        if (policy.equals("random")) {
+            policies = seed -> new RandomPolicy(seed);
+        } else {
+            policies = seed -> new FuelSeekingPolicy(seed);
+        }
+        BatchRunner runner = new BatchRunner(width, height, seekers, maxTurns, policies);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long start = System.nanoTime();
+        BatchResult result = runner.run(games, 0, pool);
+        long elapsed = System.nanoTime() - start;
+        System.out.println(result);
+        System.out.println("Played on " + pool.getParallelism() + " threads in " + elapsed / 1000000 + " ms");
+        if (GameMetrics.ENABLED) {
+            System.out.println(GameMetrics.get().getReport());
+        }
+    }
+}
@@ -0,0 +1,673 @@
+package escapegame;
+
+import javax.swing.*;
+
+import escapegame.GameEngine.TileType;
+
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Class used by GameGUI to draw elements within a JPanel. The Canvas class
+ * takes its images from the SpriteAtlas, which is loaded from the classpath,
+ * and draws copies of them made by a SpriteCache for the screen it is shown
+ * on.
+ */
+class Canvas extends JPanel {
+    /**
+     * The atlas the sprites are taken from, and the copies of them made for
+     * the screen the canvas is shown on. The copies are made again if the
+     * canvas moves to a different screen.
+     */
+    private SpriteAtlas atlas;
+    private SpriteCache sprites;
+
+    /**
+     * The snapshot currently being shown, its tiles, and the level it shows.
+     * The snapshot is held until the next update, after which it may be reused
+     * by the engine, so anything needed from it afterwards is copied out.
+     */
+    FrameSnapshot frame;
+    TileGrid currentTiles;
+    private int shownLevel = -1;
+
+    /**
+     * An off-screen image holding the tiles inside the viewport, so that each
+     * repaint only needs to copy one image instead of drawing every tile.
+     * layerTiles records which tile was drawn at each position of the layer so
+     * that only tiles that have changed are drawn again.
+     */
+    private BufferedImage tileLayer;
+    private Graphics2D layerGraphics;
+    private TileType[][] layerTiles;
+
+    /**
+     * The viewport is the part of the level that is shown on the canvas. viewX
+     * and viewY are the tile co-ordinates of its top left corner, and it is
+     * moved to keep the player in the middle of the canvas on levels that are
+     * larger than the canvas.
+     */
+    private int viewX;
+    private int viewY;
+    private int viewColumns;
+    private int viewRows;
+
+    /**
+     * The tile positions that entities were in when the canvas was last
+     * updated, used to repaint only the tiles that entities have moved out of
+     * or into. Slot 0 is the player, slot 1 the fuel, slot 2 the health, then
+     * the monsters in the order they are held in the store. An X value of -1
+     * marks an empty slot. The player's health is kept as its health bar is
+     * drawn in its tile.
+     */
+    private int[] paintedX = new int[0];
+    private int[] paintedY = new int[0];
+    private int[] nextX = new int[0];
+    private int[] nextY = new int[0];
+    private int paintedHealth;
+    private boolean paintedOverlay;
+
+    /**
+     * Whether the canvas is drawn by an ActiveRenderer rather than by Swing.
+     * When it is, entities slide from the tile they were in at the previous
+     * update, held in fromX and fromY by slot, to their new tile over
+     * SLIDE_NANOS nanoseconds from movedAt.
+     */
+    static final long SLIDE_NANOS = 120_000_000L;
+    private volatile boolean active;
+    private int[] fromX = new int[0];
+    private int[] fromY = new int[0];
+    private long movedAt;
+
+    /**
+     * The size of the canvas, its position inside the window and the screen it
+     * is on, copied by the Swing thread whenever they change while an
+     * ActiveRenderer draws the canvas. The renderer's thread reads these
+     * instead of asking the component, as Swing components may only be used
+     * on the Swing thread.
+     */
+    private volatile int shownWidth;
+    private volatile int shownHeight;
+    private volatile int windowX;
+    private volatile int windowY;
+    private volatile GraphicsConfiguration shownScreen;
+
+    /**
+     * Copies the size, position and screen of the canvas when the canvas or
+     * its window is moved or resized. Component events are delivered on the
+     * Swing thread.
+     */
+    private final ComponentAdapter geometry = new ComponentAdapter() {
+        @Override
+        public void componentResized(ComponentEvent e) {
+            measure();
+        }
+
+        @Override
+        public void componentMoved(ComponentEvent e) {
+            measure();
+        }
+    };
+
+    /**
+     * Constructor that loads tile images for use in this class
+     */
+    public Canvas() {
+        setPreferredSize(new Dimension(GameEngine.GRID_WIDTH * GameGUI.TILE_WIDTH, GameEngine.GRID_HEIGHT * GameGUI.TILE_HEIGHT));
+        loadTileImages();
+    }
+
+    /**
+     * Loads the SpriteAtlas that the tile images, along with the win and game
+     * over overlays, are taken from. The atlas is only read and decoded once
+     * however many canvases are created.
+     */
+    private void loadTileImages() {
+        try {
+            atlas = SpriteAtlas.get();
+        } catch (IOException e) {
+            System.out.println("Exception loading image: " + e.getMessage());
+            e.printStackTrace(System.out);
+        }
+    }
+
+    /**
+     * Returns the sprites copied for the screen the canvas is currently on,
+     * copying them first if they have not been copied for that screen yet.
+     * @return the sprites, or null if the atlas could not be loaded
+     */
+    SpriteCache getSprites() {
+        GraphicsConfiguration gc = screen();
+        if (atlas != null && (sprites == null || sprites.getGraphicsConfiguration() != gc)) {
+            sprites = new SpriteCache(atlas, gc);
+        }
+        return sprites;
+    }
+
+    /**
+     * Updates the current graphics on the screen to display the tiles, fuel,
+     * player and monsters in a snapshot. This must be called on the Swing
+     * thread, or on the ActiveRenderer's thread while it draws the canvas.
+     * Only the tiles that entities have left or entered since the last update
+     * are repainted, unless the level, the viewport or the overlay has
+     * changed, in which case the whole canvas is repainted.
+     * @param f The snapshot to show
+     */
+    public void update(FrameSnapshot f) {
+        boolean newLevel = f.getLevel() != shownLevel;
+        frame = f;
+        shownLevel = f.getLevel();
+        currentTiles = f.getTiles();
+        boolean scrolled = updateViewport();
+        boolean layerRedrawn = refreshTileLayer();
+
+        int slots = 3 + f.getMonsterCount();
+        if (nextX.length != slots) {
+            nextX = new int[slots];
+            nextY = new int[slots];
+        }
+        nextX[0] = f.getPlayerX();
+        nextY[0] = f.getPlayerY();
+        nextX[1] = f.getFuelX();
+        nextY[1] = f.getFuelY();
+        nextX[2] = f.getHealthX();
+        nextY[2] = f.getHealthY();
+        for (int i = 0; i < slots - 3; i++) {
+            nextX[3 + i] = f.getMonsterX(i);
+            nextY[3 + i] = f.getMonsterY(i);
+        }
+
+        boolean overlay = f.isWon() || f.isLost();
+        if (active) {
+            if (fromX.length != slots) {
+                fromX = new int[slots];
+                fromY = new int[slots];
+            }
+            boolean slide = !newLevel && slots == paintedX.length;
+            System.arraycopy(slide ? paintedX : nextX, 0, fromX, 0, slots);
+            System.arraycopy(slide ? paintedY : nextY, 0, fromY, 0, slots);
+            // An entity that moved more than one tile, such as when the window
+            // onto a streaming world moves, is shown at its new tile straight
+            // away instead of sliding across the level.
+            for (int i = 0; i < slots; i++) {
+                if (Math.abs(nextX[i] - fromX[i]) + Math.abs(nextY[i] - fromY[i]) > 1) {
+                    fromX[i] = nextX[i];
+                    fromY[i] = nextY[i];
+                }
+            }
+            movedAt = System.nanoTime();
+        } else if (newLevel || scrolled || layerRedrawn || overlay != paintedOverlay || slots != paintedX.length) {
+            repaint();
+        } else {
+            for (int i = 0; i < slots; i++) {
+                if (nextX[i] != paintedX[i] || nextY[i] != paintedY[i]) {
+                    repaintTile(paintedX[i], paintedY[i]);
+                    repaintTile(nextX[i], nextY[i]);
+                }
+            }
+            if (f.getPlayerHealth() != paintedHealth) {
+                repaintTile(f.getPlayerX(), f.getPlayerY());
+            }
+        }
+        paintedOverlay = overlay;
+        paintedHealth = f.getPlayerHealth();
+        int[] swap = paintedX;
+        paintedX = nextX;
+        nextX = swap;
+        swap = paintedY;
+        paintedY = nextY;
+        nextY = swap;
+    }
+
+    /**
+     * Requests a repaint of the area covered by a single tile. Nothing is
+     * repainted for an X position of -1, which marks an empty slot, or while
+     * the canvas is drawn by an ActiveRenderer.
+     * @param x The X position of the tile in the level
+     * @param y The Y position of the tile in the level
+     */
+    private void repaintTile(int x, int y) {
+        if (x >= 0 && !active) {
+            repaint((x - viewX) * GameGUI.TILE_WIDTH, (y - viewY) * GameGUI.TILE_HEIGHT, GameGUI.TILE_WIDTH, GameGUI.TILE_HEIGHT);
+        }
+    }
+
+    /**
+     * Moves the viewport so that the player is in the middle of it, without
+     * showing anything outside the level. The viewport is as large as the
+     * canvas, or as the level if that is smaller. When the viewport moves the
+     * tile layer is shifted so that only the newly visible tiles need drawing.
+     * @return true if the viewport has moved since the last update
+     */
+    private boolean updateViewport() {
+        int mapWidth = currentTiles == null ? 0 : currentTiles.getWidth();
+        int mapHeight = currentTiles == null ? 0 : currentTiles.getHeight();
+        int canvasWidth = width();
+        int canvasHeight = height();
+        if (canvasWidth <= 0 || canvasHeight <= 0) {
+            Dimension preferred = getPreferredSize();
+            canvasWidth = canvasWidth > 0 ? canvasWidth : preferred.width;
+            canvasHeight = canvasHeight > 0 ? canvasHeight : preferred.height;
+        }
+        int columns = Math.min(mapWidth, visibleTiles(canvasWidth, GameGUI.TILE_WIDTH));
+        int rows = Math.min(mapHeight, visibleTiles(canvasHeight, GameGUI.TILE_HEIGHT));
+        int x = 0;
+        int y = 0;
+        if (frame != null) {
+            x = Math.max(0, Math.min(frame.getPlayerX() - columns / 2, mapWidth - columns));
+            y = Math.max(0, Math.min(frame.getPlayerY() - rows / 2, mapHeight - rows));
+        }
+        boolean scrolled = x != viewX || y != viewY;
+        if (scrolled && tileLayer != null && columns == viewColumns && rows == viewRows) {
+            shiftTileLayer(x - viewX, y - viewY);
+        }
+        viewX = x;
+        viewY = y;
+        viewColumns = columns;
+        viewRows = rows;
+        return scrolled;
+    }
+
+    /**
+     * Works out how many tiles fit across one side of the canvas.
+     * @param pixels The size of the canvas in pixels, or its preferred size if
+     * it has not been laid out yet
+     * @param tileSize The size of a tile in pixels
+     * @return The number of tiles, including a partly visible last tile
+     */
+    private static int visibleTiles(int pixels, int tileSize) {
+        return Math.max(1, (pixels + tileSize - 1) / tileSize);
+    }
+
+    /**
+     * Shifts the contents of the tile layer when the viewport moves by dx
+     * columns and dy rows. Tiles that are still visible are copied to their
+     * new place in the layer and layerTiles is shifted to match, leaving null
+     * for the tiles that have scrolled into view so they are drawn by
+     * refreshTileLayer.
+     * @param dx The number of columns the viewport moved right by
+     * @param dy The number of rows the viewport moved down by
+     */
+    private void shiftTileLayer(int dx, int dy) {
+        int columns = layerTiles.length;
+        int rows = layerTiles[0].length;
+        if (Math.abs(dx) >= columns || Math.abs(dy) >= rows) {
+            for (TileType[] column : layerTiles) {
+                java.util.Arrays.fill(column, null);
+            }
+            return;
+        }
+        layerGraphics.copyArea(0, 0, tileLayer.getWidth(), tileLayer.getHeight(), -dx * GameGUI.TILE_WIDTH, -dy * GameGUI.TILE_HEIGHT);
+        for (int n = 0; n < columns; n++) {
+            int i = dx >= 0 ? n : columns - 1 - n;
+            for (int m = 0; m < rows; m++) {
+                int j = dy >= 0 ? m : rows - 1 - m;
+                int fromX = i + dx;
+                int fromY = j + dy;
+                if (fromX >= 0 && fromX < columns && fromY >= 0 && fromY < rows) {
+                    layerTiles[i][j] = layerTiles[fromX][fromY];
+                } else {
+                    layerTiles[i][j] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Override of method in super class, it draws the custom elements for this
+     * game such as the tiles, player, aliens and asteroids. The background is
+     * cleared here rather than by the super class, which copies the graphics
+     * object on every paint.
+     * @param g
+     */
+    public void paintComponent(Graphics g) {
+        long start = GameMetrics.now();
+        clearBackground(g);
+        if (!active) {
+            drawMap(g, 1);
+            drawOverlays(g);
+        }
+        GameMetrics.PAINT.since(start);
+    }
+
+    /**
+     * Sets whether the canvas is drawn by an ActiveRenderer. While it is,
+     * update no longer asks Swing to repaint and paintComponent only clears
+     * the canvas, so that Swing and the renderer never draw at the same time.
+     * @param active true when an ActiveRenderer draws the canvas
+     */
+    void setActive(boolean active) {
+        Window window = SwingUtilities.getWindowAncestor(this);
+        if (active) {
+            measure();
+            addComponentListener(geometry);
+            if (window != null) {
+                window.addComponentListener(geometry);
+            }
+        } else {
+            removeComponentListener(geometry);
+            if (window != null) {
+                window.removeComponentListener(geometry);
+            }
+        }
+        this.active = active;
+        setIgnoreRepaint(active);
+    }
+
+    /**
+     * Copies the size of the canvas, its position inside its window and the
+     * screen it is on for the ActiveRenderer's thread. Called on the Swing
+     * thread.
+     */
+    private void measure() {
+        Window window = SwingUtilities.getWindowAncestor(this);
+        Point position = window == null ? new Point() : SwingUtilities.convertPoint(this, 0, 0, window);
+        shownScreen = getGraphicsConfiguration();
+        windowX = position.x;
+        windowY = position.y;
+        shownWidth = getWidth();
+        shownHeight = getHeight();
+    }
+
+    /**
+     * Returns the X position of the canvas inside its window, as last copied
+     * by the Swing thread.
+     * @return the X position in pixels
+     */
+    int getWindowX() {
+        return windowX;
+    }
+
+    /**
+     * Returns the Y position of the canvas inside its window, as last copied
+     * by the Swing thread.
+     * @return the Y position in pixels
+     */
+    int getWindowY() {
+        return windowY;
+    }
+
+    /**
+     * Returns the width of the canvas. While an ActiveRenderer draws the
+     * canvas this is the width last copied by the Swing thread.
+     * @return the width in pixels
+     */
+    int width() {
+        return active ? shownWidth : getWidth();
+    }
+
+    /**
+     * Returns the height of the canvas. While an ActiveRenderer draws the
+     * canvas this is the height last copied by the Swing thread.
+     * @return the height in pixels
+     */
+    int height() {
+        return active ? shownHeight : getHeight();
+    }
+
+    /**
+     * Returns the screen the canvas is on. While an ActiveRenderer draws the
+     * canvas this is the screen last copied by the Swing thread.
+     * @return the graphics configuration, or null if there is no screen
+     */
+    private GraphicsConfiguration screen() {
+        return active ? shownScreen : getGraphicsConfiguration();
+    }
+
+    /**
+     * Draws the canvas for an ActiveRenderer, with each entity part of the way
+     * along its slide from its previous tile.
+     * @param g Graphics object to use for drawing, with its origin at the top
+     * left of the canvas
+     * @param now The time from System.nanoTime that the frame is drawn for
+     */
+    void render(Graphics g, long now) {
+        long start = GameMetrics.now();
+        clearBackground(g);
+        drawMap(g, Math.min(1f, (now - movedAt) / (float) SLIDE_NANOS));
+        drawOverlays(g);
+        GameMetrics.PAINT.since(start);
+    }
+
+    /**
+     * Fills the canvas with its background colour.
+     * @param g Graphics object to use for drawing
+     */
+    private void clearBackground(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, width(), height());
+    }
+
+    /**
+     * Draws graphical elements to the screen to display the current level
+     * tiles, the player, asteroids and the aliens. If the tiles, player or
+     * alien objects are null they will not be drawn.
+     * @param g Graphics object to use for drawing
+     * @param t How far entities are along their slide from their previous
+     * tile, from 0 to 1, which is always 1 when Swing draws the canvas
+     */
+    private void drawMap(Graphics g, float t) {
+        Graphics2D g2 = (Graphics2D) g;
+        if (tileLayer != null) {
+            g2.drawImage(tileLayer, 0, 0, null);
+        }
+
+        SpriteCache sprites = getSprites();
+        if (frame == null || sprites == null) {
+            return;
+        }
+        for (int i = 0; i < frame.getMonsterCount(); i++) {
+            Sprite sprite = frame.getMonsterKind(i) == MonsterStore.SEEKER ? Sprite.SEEKER : Sprite.CHASER;
+            drawSprite(g2, sprites, sprite, 3 + i, t);
+        }
+
+        drawSprite(g2, sprites, Sprite.PLAYER, 0, t);
+        drawHealthBar(g2, t);
+
+        if (frame.getFuelX() >= 0) {
+            drawSprite(g2, sprites, Sprite.FUEL, 1, t);
+        }
+        if (frame.getHealthX() >= 0) {
+            drawSprite(g2, sprites, Sprite.HEALTH, 2, t);
+        }
+    }
+
+    /**
+     * Draws the win overlay once the player has won, or the game over overlay
+     * once the player has run out of health, over the visible part of the
+     * level.
+     * @param g Graphics object to use for drawing
+     */
+    private void drawOverlays(Graphics g) {
+        SpriteCache sprites = getSprites();
+        if (frame == null || sprites == null) {
+            return;
+        }
+        int width = viewColumns * GameGUI.TILE_WIDTH;
+        int height = viewRows * GameGUI.TILE_HEIGHT;
+        if (frame.isWon()) {
+            sprites.draw(g, Sprite.YOU_WIN, 0, 0, width, height);
+        }
+        if (frame.isLost()) {
+            sprites.draw(g, Sprite.GAME_OVER, 0, 0, width, height);
+        }
+    }
+
+    /**
+     * Draws the image of the entity in a slot at its position in the level, if
+     * any of it is inside the viewport.
+     * @param g2 The graphics object to use for drawing
+     * @param sprites The sprites copied for the screen
+     * @param sprite The sprite to draw
+     * @param slot The slot of the entity, as used by paintedX and paintedY
+     * @param t How far the entity is along its slide from its previous tile
+     */
+    private void drawSprite(Graphics2D g2, SpriteCache sprites, Sprite sprite, int slot, float t) {
+        float column = slideX(slot, t) - viewX;
+        float row = slideY(slot, t) - viewY;
+        if (column > -1 && column < viewColumns && row > -1 && row < viewRows) {
+            sprites.draw(g2, sprite, Math.round(column * GameGUI.TILE_WIDTH), Math.round(row * GameGUI.TILE_HEIGHT));
+        }
+    }
+
+    /**
+     * Returns the X position in the level, in tiles, to draw the entity in a
+     * slot at.
+     * @param slot The slot of the entity
+     * @param t How far the entity is along its slide from its previous tile
+     * @return the X position, between the previous and current tile
+     */
+    private float slideX(int slot, float t) {
+        return slides(slot, t) ? fromX[slot] + (paintedX[slot] - fromX[slot]) * t : paintedX[slot];
+    }
+
+    /**
+     * Returns the Y position in the level, in tiles, to draw the entity in a
+     * slot at.
+     * @param slot The slot of the entity
+     * @param t How far the entity is along its slide from its previous tile
+     * @return the Y position, between the previous and current tile
+     */
+    private float slideY(int slot, float t) {
+        return slides(slot, t) ? fromY[slot] + (paintedY[slot] - fromY[slot]) * t : paintedY[slot];
+    }
+
+    /**
+     * Checks whether the entity in a slot is part way through a slide. Only
+     * steps to a neighbouring tile slide, so entities that appear, vanish or
+     * are placed somewhere new are drawn straight in their new tile.
+     * @param slot The slot of the entity
+     * @param t How far the entity is along its slide from its previous tile
+     * @return true if the entity should be drawn between two tiles
+     */
+    private boolean slides(int slot, float t) {
+        return t < 1 && slot < fromX.length && fromX[slot] >= 0
+                && Math.abs(paintedX[slot] - fromX[slot]) + Math.abs(paintedY[slot] - fromY[slot]) == 1;
+    }
+
+    /**
+     * Brings the off-screen tile layer up to date with the tiles inside the
+     * viewport. The layer is created and fully drawn when the viewport changes
+     * size, otherwise only tiles that differ from the last drawn ones are
+     * redrawn and repainted.
+     * @return true if the whole layer was drawn again, false if only changed
+     * tiles were
+     */
+    private boolean refreshTileLayer() {
+        if (currentTiles == null || viewColumns == 0 || viewRows == 0) {
+            setTileLayer(null);
+            layerTiles = null;
+            return true;
+        }
+        boolean redrawn = false;
+        int width = viewColumns;
+        int height = viewRows;
+        if (tileLayer == null || layerTiles.length != width || layerTiles[0].length != height) {
+            setTileLayer(createLayerImage(width * GameGUI.TILE_WIDTH, height * GameGUI.TILE_HEIGHT));
+            layerTiles = new TileType[width][height];
+            redrawn = true;
+        }
+        SpriteCache sprites = getSprites();
+        if (sprites == null) {
+            return redrawn;
+        }
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                TileType tile = currentTiles.get(viewX + i, viewY + j);
+                if (tile != layerTiles[i][j]) {
+                    layerGraphics.drawImage(sprites.getImage(tileSprite(tile)), i * GameGUI.TILE_WIDTH, j * GameGUI.TILE_HEIGHT, null);
+                    layerTiles[i][j] = tile;
+                    if (!redrawn) {
+                        repaintTile(viewX + i, viewY + j);
+                    }
+                }
+            }
+        }
+        return redrawn;
+    }
+
+    /**
+     * Replaces the tile layer. The graphics object used to draw to the layer
+     * is kept for as long as the layer is, rather than created for every
+     * update, so that updating the layer does not allocate.
+     * @param layer The new layer, or null to drop the layer
+     */
+    private void setTileLayer(BufferedImage layer) {
+        if (layerGraphics != null) {
+            layerGraphics.dispose();
+            layerGraphics = null;
+        }
+        tileLayer = layer;
+        if (layer != null) {
+            layerGraphics = layer.createGraphics();
+        }
+    }
+
+    /**
+     * Creates an image for the tile layer, in the format of the screen when the
+     * canvas is being displayed so that copying it to the screen is fast.
+     * @param width The width of the image in pixels
+     * @param height The height of the image in pixels
+     * @return A new opaque image of the given size
+     */
+    private BufferedImage createLayerImage(int width, int height) {
+        GraphicsConfiguration gc = screen();
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height, Transparency.OPAQUE);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Returns the sprite used to draw the given type of tile.
+     * @param tile The type of tile
+     * @return The sprite for that tile
+     */
+    private static Sprite tileSprite(TileType tile) {
+        switch (tile) {
+            case CAR:
+                return Sprite.CAR;
+            case DIRT:
+                return Sprite.DIRT;
+            case NEST:
+                return Sprite.NEST;
+            case GRASS:
+                return Sprite.GRASS;
+            case ROAD:
+                return Sprite.ROAD;
+            default:
+                return Sprite.WALL;
+        }
+    }
+
+    /**
+     * Draws a health bar for the player at the bottom of the tile that the
+     * player is drawn in.
+     * @param g2 The graphics object to use for drawing
+     * @param t How far the player is along its slide from its previous tile
+     */
+    private void drawHealthBar(Graphics2D g2, float t) {
+        double remainingHealth = (double) frame.getPlayerHealth() / (double) frame.getPlayerMaxHealth();
+        g2.setColor(Color.RED);
+        int x = Math.round((slideX(0, t) - viewX) * GameGUI.TILE_WIDTH);
+        int y = Math.round((slideY(0, t) - viewY) * GameGUI.TILE_HEIGHT) + 29;
+        g2.fillRect(x, y, GameGUI.TILE_WIDTH, GameGUI.HEALTH_BAR_HEIGHT);
+        g2.setColor(Color.GREEN);
+        g2.fillRect(x, y, healthBarWidth(remainingHealth), GameGUI.HEALTH_BAR_HEIGHT);
+    }
+
+    /**
+     * Works out how many pixels of the health bar are green. This matches the
+     * width Java2D gave when the bar was filled as a Rectangle2D with the
+     * default stroke control, which moves the edges of shapes to a quarter of
+     * a pixel past the nearest whole pixel before filling them.
+     * @param remainingHealth The fraction of health the player has left
+     * @return the width of the green part in pixels
+     */
+    private static int healthBarWidth(double remainingHealth) {
+        return Math.max(0, (int) Math.floor(GameGUI.TILE_WIDTH * remainingHealth + 0.25));
+    }
+}
@@ -0,0 +1,178 @@
+package escapegame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * The ChunkStore class keeps chunks of a ChunkedWorld that have been pushed
+ * out of memory in a file on disk. The file is memory-mapped in segments, each
+ * holding a fixed number of chunks, so writing or reading a chunk is a copy to
+ * or from the mapping and the operating system decides when the pages are
+ * written out. A chunk keeps the same slot in the file every time it is
+ * written.
+ *
+ * The slot of each chunk is kept in the file as well, in a table at the start
+ * of it with one int for every chunk of the world, so the memory used by the
+ * store does not grow with the number of chunks written. A slot is stored
+ * plus one, so the zeros a new file is filled with mean the chunk has never
+ * been written.
+ */
+public class ChunkStore {
+
+    /**
+     * The number of chunks held by each mapped segment of the file.
+     */
+    private static final int CHUNKS_PER_SEGMENT = 256;
+
+    /**
+     * The number of bytes in a chunk.
+     */
+    private final int chunkBytes;
+
+    /**
+     * The number of bytes taken by the table of slots at the start of the
+     * file.
+     */
+    private final long tableBytes;
+
+    /**
+     * The file the chunks are written to, and its channel.
+     */
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+
+    /**
+     * The mapped segments of the file, in order.
+     */
+    private final ArrayList<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+
+    /**
+     * The mapped table holding the slot of every chunk, at 4 * key.
+     */
+    private final MappedByteBuffer slots;
+
+    /**
+     * The number of chunks written so far.
+     */
+    private int count;
+
+    /**
+     * Opens a store in the given file. Anything already in the file is
+     * overwritten.
+     * @param path The file to keep the chunks in
+     * @param chunkBytes The number of bytes in a chunk
+     * @param chunkCount The number of chunks in the world, so that every
+     * key is less than this
+     * @throws IOException if the file cannot be opened
+     */
+    public ChunkStore(File path, int chunkBytes, long chunkCount) throws IOException {
+        if (chunkCount > Integer.MAX_VALUE / 4) {
+            throw new IllegalArgumentException("Too many chunks to store: " + chunkCount);
+        }
+        this.chunkBytes = chunkBytes;
+        this.tableBytes = chunkCount * 4;
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = file.getChannel();
+        file.setLength(0);
+        this.slots = channel.map(FileChannel.MapMode.READ_WRITE, 0, tableBytes);
+    }
+
+    /**
+     * Returns the number of chunks held in the file.
+     * @return the number of chunks written so far
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Checks whether a chunk has been written to the store.
+     * @param key The key of the chunk
+     * @return true if the chunk can be read
+     */
+    public boolean contains(long key) {
+        return slots.getInt(index(key)) != 0;
+    }
+
+    /**
+     * Writes a chunk to the store, replacing any earlier copy.
+     * @param key The key of the chunk
+     * @param cells The tiles of the chunk
+     * @throws IOException if the file cannot be grown
+     */
+    public void write(long key, byte[] cells) throws IOException {
+        int slot = slots.getInt(index(key)) - 1;
+        if (slot < 0) {
+            slot = count++;
+            slots.putInt(index(key), slot + 1);
+        }
+        segment(slot).put(offset(slot), cells, 0, chunkBytes);
+    }
+
+    /**
+     * Reads a chunk from the store.
+     * @param key The key of the chunk
+     * @param cells The array to read the tiles of the chunk into
+     * @return true if the chunk was found, false if it has never been written
+     * @throws IOException if the file cannot be mapped
+     */
+    public boolean read(long key, byte[] cells) throws IOException {
+        int slot = slots.getInt(index(key)) - 1;
+        if (slot < 0) {
+            return false;
+        }
+        segment(slot).get(offset(slot), cells, 0, chunkBytes);
+        return true;
+    }
+
+    /**
+     * Closes the file. The store cannot be used afterwards.
+     * @throws IOException if the file cannot be closed
+     */
+    public void close() throws IOException {
+        segments.clear();
+        channel.close();
+        file.close();
+    }
+
+    /**
+     * Returns the mapped segment holding a slot, mapping new segments at the
+     * end of the file as needed.
+     * @param slot The slot of a chunk
+     * @return the segment holding the slot
+     * @throws IOException if the file cannot be mapped
+     */
+    private MappedByteBuffer segment(int slot) throws IOException {
+        int index = slot / CHUNKS_PER_SEGMENT;
+        while (segments.size() <= index) {
+            long start = tableBytes + (long) segments.size() * CHUNKS_PER_SEGMENT * chunkBytes;
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, (long) CHUNKS_PER_SEGMENT * chunkBytes));
+        }
+        return segments.get(index);
+    }
+
+    /**
+     * Returns the position of a chunk's entry in the table of slots.
+     * @param key The key of the chunk
+     * @return the offset in bytes
+     */
+    private int index(long key) {
+        if (key < 0 || key * 4 >= tableBytes) {
+            throw new IndexOutOfBoundsException("No chunk " + key + " in the store");
+        }
+        return (int) key * 4;
+    }
+
+    /**
+     * Returns the position of a slot within its segment.
+     * @param slot The slot of a chunk
+     * @return the offset in bytes
+     */
+    private int offset(int slot) {
+        return (slot % CHUNKS_PER_SEGMENT) * chunkBytes;
+    }
+}
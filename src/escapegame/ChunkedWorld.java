@@ -0,0 +1,331 @@
+package escapegame;
+
+import escapegame.GameEngine.TileType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The ChunkedWorld class holds the tiles of a world far too big to keep in
+ * memory, such as 100000 x 100000 tiles. The world is split into square
+ * chunks of LevelGenerator.CHUNK_SIZE tiles which are only created when a tile
+ * in them is first used, from the world's seed in the same way as the chunks
+ * of a level. At most a fixed number of chunks are kept in memory, and the
+ * least recently used chunk is dropped when another is needed. Chunks that
+ * are the same as when they were generated can simply be generated again, so
+ * only chunks with changed tiles are written to a memory-mapped ChunkStore.
+ *
+ * Tiles are read and changed with get and set, like a TileGrid, as both are
+ * TileSources. The world is generated as terrain only. A GameEngine created
+ * with a world plays on a TileGrid window onto it, which it lays a road and
+ * Car over for each level and writes back as the player moves on, so the
+ * world only ever needs the chunks around the player in memory.
+ *
+ * A world is not safe to use from more than one thread at a time. The engine
+ * only uses it on the thread running the game.
+ */
+public class ChunkedWorld implements TileSource {
+
+    private static final TileType[] TYPES = TileType.values();
+    private static final int SIZE = LevelGenerator.CHUNK_SIZE;
+
+    /**
+     * The width and height of the world in tiles, and in chunks across.
+     */
+    private final int width;
+    private final int height;
+    private final long columns;
+
+    /**
+     * The seed the chunks are generated from.
+     */
+    private final long seed;
+
+    /**
+     * The radius, in chunks, of the area around the focus that is generated
+     * ahead of time.
+     */
+    private final int radius;
+
+    /**
+     * The chunks in memory by key, least recently used first. When there are
+     * more than the limit the oldest is stored if it has changed and dropped.
+     */
+    private final LinkedHashMap<Long, Chunk> chunks;
+
+    /**
+     * The file that changed chunks are written to when they are dropped.
+     */
+    private final ChunkStore store;
+
+    /**
+     * The last chunk used, checked first as most tile reads are close
+     * together.
+     */
+    private Chunk last;
+
+    /**
+     * Counts of chunks generated, dropped and read back from the store.
+     */
+    private long generated = 0;
+    private long evicted = 0;
+    private long reloaded = 0;
+
+    /**
+     * Creates a world. Nothing is generated until a tile is used.
+     * @param width The width of the world in tiles
+     * @param height The height of the world in tiles
+     * @param seed The seed the tiles are generated from
+     * @param maxChunks The largest number of chunks kept in memory at once
+     * @param radius The radius in chunks generated around the focus
+     * @param storeFile The file that changed chunks are written to
+     * @throws IOException if the store file cannot be opened
+     */
+    public ChunkedWorld(int width, int height, long seed, final int maxChunks, int radius, File storeFile) throws IOException {
+        if ((2 * radius + 1) * (2 * radius + 1) > maxChunks) {
+            throw new IllegalArgumentException("A radius of " + radius + " chunks needs more than " + maxChunks + " chunks in memory");
+        }
+        this.width = width;
+        this.height = height;
+        this.columns = (width + SIZE - 1) / SIZE;
+        this.seed = seed;
+        this.radius = radius;
+        this.store = new ChunkStore(storeFile, SIZE * SIZE, columns * ((height + SIZE - 1) / SIZE));
+        this.chunks = new LinkedHashMap<Long, Chunk>(maxChunks * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                if (size() <= maxChunks) {
+                    return false;
+                }
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the width of the world.
+     * @return the width in tiles
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the world.
+     * @return the height in tiles
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks whether a position is inside the world.
+     * @param x The X position
+     * @param y The Y position
+     * @return true if the position is inside the world
+     */
+    @Override
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Returns the type of a tile, generating its chunk if needed.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     * @return the type of the tile
+     */
+    @Override
+    public TileType get(int x, int y) {
+        return TYPES[chunk(x, y).cells[(y % SIZE) * SIZE + x % SIZE]];
+    }
+
+    /**
+     * Sets the type of a tile. The tile's chunk is written to the store when
+     * it is dropped from memory, so the change is not lost.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     * @param type The new type of the tile
+     */
+    @Override
+    public void set(int x, int y, TileType type) {
+        Chunk chunk = chunk(x, y);
+        chunk.cells[(y % SIZE) * SIZE + x % SIZE] = (byte) type.ordinal();
+        chunk.changed = true;
+    }
+
+    /**
+     * Makes sure the chunks around a position are in memory, such as the
+     * position of the player after each move, so that they are ready before
+     * they are needed and are the last to be dropped.
+     * @param x The X position
+     * @param y The Y position
+     */
+    public void focus(int x, int y) {
+        int chunkX = x / SIZE;
+        int chunkY = y / SIZE;
+        for (int cy = chunkY - radius; cy <= chunkY + radius; cy++) {
+            for (int cx = chunkX - radius; cx <= chunkX + radius; cx++) {
+                if (cx >= 0 && cy >= 0 && cx < columns && (long) cy * SIZE < height) {
+                    chunk(cx * SIZE, cy * SIZE);
+                }
+            }
+        }
+        chunk(x, y);
+    }
+
+    /**
+     * Returns the number of chunks in memory.
+     * @return the number of chunks held
+     */
+    public int getChunksInMemory() {
+        return chunks.size();
+    }
+
+    /**
+     * Returns the number of chunks written to the store.
+     * @return the number of changed chunks on disk
+     */
+    public int getChunksStored() {
+        return store.size();
+    }
+
+    /**
+     * Returns the number of chunks generated from the seed so far.
+     * @return the number of chunks generated
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * Returns the number of chunks dropped from memory so far.
+     * @return the number of chunks dropped
+     */
+    public long getEvicted() {
+        return evicted;
+    }
+
+    /**
+     * Returns the number of chunks read back from the store so far.
+     * @return the number of chunks read from disk
+     */
+    public long getReloaded() {
+        return reloaded;
+    }
+
+    /**
+     * Closes the store file. The world cannot be used afterwards.
+     * @throws IOException if the file cannot be closed
+     */
+    public void close() throws IOException {
+        store.close();
+    }
+
+    /**
+     * Returns the chunk holding a tile, reading it from the store or
+     * generating it if it is not in memory.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     * @return the chunk
+     */
+    private Chunk chunk(int x, int y) {
+        if (!contains(x, y)) {
+            throw new IndexOutOfBoundsException("Tile " + x + "," + y + " is outside the world");
+        }
+        long key = (y / SIZE) * columns + x / SIZE;
+        if (last != null && last.key == key) {
+            return last;
+        }
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = load(key);
+            chunks.put(key, chunk);
+        }
+        last = chunk;
+        return chunk;
+    }
+
+    /**
+     * Reads a chunk from the store, or generates it if it has never been
+     * changed.
+     * @param key The key of the chunk
+     * @return the chunk
+     */
+    private Chunk load(long key) {
+        Chunk chunk = new Chunk(key);
+        try {
+            if (store.read(key, chunk.cells)) {
+                reloaded++;
+                return chunk;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        SplittableRandom rng = LevelGenerator.chunkRandom(seed, key);
+        int startX = (int) (key % columns) * SIZE;
+        int startY = (int) (key / columns) * SIZE;
+        int endX = Math.min(startX + SIZE, width);
+        int endY = Math.min(startY + SIZE, height);
+        for (int y = startY; y < endY; y++) {
+            int index = (y - startY) * SIZE;
+            for (int x = startX; x < endX; x++) {
+                chunk.cells[index++] = (byte) LevelGenerator.nextTile(rng);
+            }
+        }
+        generated++;
+        return chunk;
+    }
+
+    /**
+     * Called when a chunk is dropped from memory. The chunk is written to the
+     * store if any of its tiles have changed since it was generated.
+     * @param chunk The chunk being dropped
+     */
+    private void evict(Chunk chunk) {
+        evicted++;
+        if (last == chunk) {
+            last = null;
+        }
+        if (chunk.changed) {
+            try {
+                store.write(chunk.key, chunk.cells);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * A square of tiles held in memory.
+     */
+    private static class Chunk {
+
+        /**
+         * The key of the chunk, its row times the chunks across plus its
+         * column.
+         */
+        final long key;
+
+        /**
+         * The tile ordinals, stored at y * CHUNK_SIZE + x within the chunk.
+         */
+        final byte[] cells = new byte[SIZE * SIZE];
+
+        /**
+         * Whether a tile has been set since the chunk was generated or read.
+         */
+        boolean changed;
+
+        Chunk(long key) {
+            this.key = key;
+        }
+    }
+}
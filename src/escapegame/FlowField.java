@@ -0,0 +1,181 @@
+package escapegame;
+
+import escapegame.GameEngine.TileType;
+
+import java.util.Arrays;
+
+/**
+ * The FlowField class stores, for the tiles around a target tile, the number
+ * of steps needed to reach the target without walking through walls. It is
+ * worked out with one breadth first search outward from the target, after
+ * which any number of monsters can find their way to the target by stepping
+ * to a neighbouring tile with a smaller distance.
+ *
+ * A field can be given a radius, in which case the search stops at tiles that
+ * many steps from the target and only a square window of the level around the
+ * target is stored. Moving the target one tile then costs a search of the
+ * window rather than of the whole level, so the cost does not grow with the
+ * size of the level. Every tile within the radius of the target lies inside
+ * the window, so the distances that are stored are exact, and tiles further
+ * away are treated as unreachable. Without a radius the window is the whole
+ * level.
+ *
+ * The field only has to be worked out again when the target moves or the
+ * level changes. Tiles of a level only change from Nest to Dirt during a
+ * game, and both are open, so the distances stay right.
+ */
+public class FlowField {
+
+    /**
+     * The distance stored for tiles that cannot reach the target, including
+     * walls and tiles further than the radius away.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The width and height of the level this field covers.
+     */
+    private final int width;
+    private final int height;
+
+    /**
+     * The largest distance searched from the target.
+     */
+    private final int radius;
+
+    /**
+     * The width and height of the window of the level that distances are
+     * stored for, and the position of its top left tile in the level. The
+     * window is placed around the target but kept inside the level.
+     */
+    private final int windowWidth;
+    private final int windowHeight;
+    private int originX;
+    private int originY;
+
+    /**
+     * The distance from each tile of the window to the target, stored at
+     * (y - originY) * windowWidth + (x - originX).
+     */
+    private final int[] distance;
+
+    /**
+     * The queue of window indexes used by the search. It is kept between
+     * searches so that working out the field does not allocate.
+     */
+    private final int[] queue;
+
+    /**
+     * The tiles and target the field was last worked out for. The tiles are
+     * used to tell whether the field belongs to the current level.
+     */
+    private TileGrid tiles;
+    private int target = -1;
+
+    /**
+     * Creates an empty flow field covering the whole of a level of the given
+     * size. Every tile is unreachable until compute is called.
+     * @param width The width of the level in tiles
+     * @param height The height of the level in tiles
+     */
+    public FlowField(int width, int height) {
+        this(width, height, UNREACHABLE);
+    }
+
+    /**
+     * Creates an empty flow field that only searches the given number of
+     * steps from its target. Every tile is unreachable until compute is
+     * called.
+     * @param width The width of the level in tiles
+     * @param height The height of the level in tiles
+     * @param radius The largest distance from the target to search
+     */
+    public FlowField(int width, int height, int radius) {
+        this.width = width;
+        this.height = height;
+        this.radius = radius;
+        this.windowWidth = (int) Math.min(width, 2L * radius + 1);
+        this.windowHeight = (int) Math.min(height, 2L * radius + 1);
+        this.distance = new int[windowWidth * windowHeight];
+        this.queue = new int[windowWidth * windowHeight];
+        Arrays.fill(distance, UNREACHABLE);
+    }
+
+    /**
+     * Works out the distance from every tile within the radius to the target
+     * tile. Wall tiles cannot be walked through.
+     * @param tiles The tiles of the level, which must be the size of this field
+     * @param targetX The X position of the target tile
+     * @param targetY The Y position of the target tile
+     */
+    public void compute(TileGrid tiles, int targetX, int targetY) {
+        this.tiles = tiles;
+        this.target = targetY * width + targetX;
+        originX = Math.max(0, Math.min(targetX - windowWidth / 2, width - windowWidth));
+        originY = Math.max(0, Math.min(targetY - windowHeight / 2, height - windowHeight));
+        Arrays.fill(distance, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        int start = (targetY - originY) * windowWidth + targetX - originX;
+        distance[start] = 0;
+        queue[tail++] = start;
+        int wall = TileType.WALL.ordinal();
+        int last = windowWidth * windowHeight - windowWidth;
+        while (head < tail) {
+            int cell = queue[head++];
+            if (distance[cell] == radius) {
+                continue;
+            }
+            int x = cell % windowWidth;
+            int level = (originY + cell / windowWidth) * width + originX + x;
+            int next = distance[cell] + 1;
+            if (x > 0 && distance[cell - 1] == UNREACHABLE && tiles.getOrdinal(level - 1) != wall) {
+                distance[cell - 1] = next;
+                queue[tail++] = cell - 1;
+            }
+            if (x < windowWidth - 1 && distance[cell + 1] == UNREACHABLE && tiles.getOrdinal(level + 1) != wall) {
+                distance[cell + 1] = next;
+                queue[tail++] = cell + 1;
+            }
+            if (cell >= windowWidth && distance[cell - windowWidth] == UNREACHABLE && tiles.getOrdinal(level - width) != wall) {
+                distance[cell - windowWidth] = next;
+                queue[tail++] = cell - windowWidth;
+            }
+            if (cell < last && distance[cell + windowWidth] == UNREACHABLE && tiles.getOrdinal(level + width) != wall) {
+                distance[cell + windowWidth] = next;
+                queue[tail++] = cell + windowWidth;
+            }
+        }
+    }
+
+    /**
+     * Brings the field up to date for a target at the given position. Nothing
+     * is done if the field was last worked out for the same tiles and target,
+     * otherwise the field is worked out again.
+     * @param tiles The tiles of the level, which must be the size of this field
+     * @param targetX The X position of the target tile
+     * @param targetY The Y position of the target tile
+     */
+    public void update(TileGrid tiles, int targetX, int targetY) {
+        if (tiles != this.tiles || targetY * width + targetX != target) {
+            compute(tiles, targetX, targetY);
+        }
+    }
+
+    /**
+     * Returns the number of steps from a tile to the target.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     * @return The distance to the target, or UNREACHABLE if the tile is a wall,
+     * is cut off from the target, is further than the radius away or is
+     * outside the level
+     */
+    public int getDistance(int x, int y) {
+        x -= originX;
+        y -= originY;
+        if (x < 0 || x >= windowWidth || y < 0 || y >= windowHeight) {
+            return UNREACHABLE;
+        }
+        return distance[y * windowWidth + x];
+    }
+}
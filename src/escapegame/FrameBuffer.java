@@ -0,0 +1,74 @@
+package escapegame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The FrameBuffer class passes FrameSnapshots from the engine to the GUI using
+ * three snapshots that are reused for the whole game. The engine fills the
+ * back snapshot and publishes it, which swaps it with the middle one. The GUI
+ * acquires the latest snapshot by swapping the middle one with the front one
+ * it was drawing. The engine never writes to the snapshot the GUI holds and
+ * neither side ever waits for the other, and no snapshots are created after
+ * the buffer itself.
+ */
+public class FrameBuffer {
+
+    /**
+     * Set in the middle value when the middle snapshot has been published but
+     * not yet acquired. The lower bits hold the index of the middle snapshot.
+     */
+    private static final int FRESH = 4;
+    private static final int INDEX = 3;
+
+    /**
+     * The three snapshots that are passed around.
+     */
+    private final FrameSnapshot[] frames = {new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot()};
+
+    /**
+     * The index of the snapshot being filled by the engine. Only used by the
+     * engine's thread.
+     */
+    private int back = 0;
+
+    /**
+     * The index of the snapshot waiting between the engine and the GUI, with
+     * the FRESH bit set if it is newer than the front one.
+     */
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    /**
+     * The index of the snapshot held by the GUI. Only used by the GUI's thread.
+     */
+    private int front = 2;
+
+    /**
+     * Returns the snapshot the engine should fill before calling publish.
+     * @return the back snapshot
+     */
+    FrameSnapshot getBackBuffer() {
+        return frames[back];
+    }
+
+    /**
+     * Makes the back snapshot available to the GUI and takes the middle one
+     * to be filled next.
+     */
+    void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX;
+    }
+
+    /**
+     * Returns the latest published snapshot. The snapshot stays unchanged
+     * until acquire is called again, so it can be drawn as often as needed in
+     * the meantime. This must always be called from the same thread.
+     * @return the latest snapshot, or null if none has been published yet
+     */
+    public FrameSnapshot acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        }
+        FrameSnapshot frame = frames[front];
+        return frame.isCaptured() ? frame : null;
+    }
+}
@@ -0,0 +1,264 @@
+package escapegame;
+
+/**
+ * A FrameSnapshot is a copy of everything needed to draw one frame of the
+ * game, taken by the engine at the end of a turn. Snapshots are reused by a
+ * FrameBuffer, which makes sure a snapshot is never changed while the GUI
+ * holds it, so the GUI can draw it on the Swing thread while the engine
+ * carries on with the next turn on its own thread. The arrays of a snapshot
+ * only grow when there are more monsters than before, so taking a snapshot
+ * normally allocates nothing.
+ *
+ * Each snapshot keeps its own copy of the tiles. When the snapshot is taken
+ * again only the tiles changed since it was last taken are copied into it,
+ * using the level's list of changes, so a Nest turning to Dirt costs one tile
+ * rather than a copy of the whole level. The whole level is only copied when
+ * a new level starts.
+ */
+public final class FrameSnapshot {
+
+    /**
+     * The snapshot's copy of the tiles of the level, the engine's tiles it was
+     * copied from and the version of those tiles it holds.
+     */
+    private TileGrid tiles;
+    private TileGrid tilesSource;
+    private int tilesVersion;
+
+    /**
+     * The number of levels cleared when the snapshot was taken, which also
+     * identifies the level being shown.
+     */
+    private int level;
+
+    /**
+     * The position and health of the player.
+     */
+    private int playerX;
+    private int playerY;
+    private int playerHealth;
+    private int playerMaxHealth;
+
+    /**
+     * The positions of the fuel and health pickups. An X value of -1 means the
+     * pickup has been collected.
+     */
+    private int fuelX;
+    private int fuelY;
+    private int healthX;
+    private int healthY;
+
+    /**
+     * The positions and kinds of the monsters, copied from the MonsterStore.
+     */
+    private int[] monsterX;
+    private int[] monsterY;
+    private byte[] monsterKind;
+
+    /**
+     * Whether the player has won the game.
+     */
+    private boolean won;
+
+    /**
+     * The number of monsters copied into the arrays, and whether the snapshot
+     * has been filled in at all.
+     */
+    private int monsterCount;
+    private boolean captured;
+
+    /**
+     * Creates an empty snapshot for a FrameBuffer.
+     */
+    FrameSnapshot() {
+        monsterX = new int[16];
+        monsterY = new int[16];
+        monsterKind = new byte[16];
+    }
+
+    /**
+     * Fills the snapshot with the given game state. The snapshot's copy of the
+     * tiles is brought up to date from the level's list of changes if it was
+     * last taken from the same tiles, and copied in full otherwise.
+     * @param tiles The tiles of the level, which should be keeping a list of
+     * changes
+     * @param level The number of levels cleared
+     * @param player The player
+     * @param monsters The monsters in the level
+     * @param fuel The fuel, or null if it has been collected
+     * @param health The health pickup, or null if it has been collected
+     * @param won true if the player has won the game
+     */
+    void capture(TileGrid tiles, int level, Human player, MonsterStore monsters, Fuel fuel, Health health, boolean won) {
+        if (this.tiles == null || this.tiles.getWidth() != tiles.getWidth() || this.tiles.getHeight() != tiles.getHeight()) {
+            this.tiles = tiles.copy();
+        } else if (tiles != tilesSource || !tiles.copyChangesTo(this.tiles, tilesVersion)) {
+            tiles.copyTo(this.tiles);
+        }
+        tilesSource = tiles;
+        tilesVersion = tiles.getVersion();
+        this.level = level;
+        this.playerX = player.getX();
+        this.playerY = player.getY();
+        this.playerHealth = player.getHealth();
+        this.playerMaxHealth = player.getMaxHealth();
+        this.fuelX = fuel == null ? -1 : fuel.getX();
+        this.fuelY = fuel == null ? -1 : fuel.getY();
+        this.healthX = health == null ? -1 : health.getX();
+        this.healthY = health == null ? -1 : health.getY();
+        int count = monsters.size();
+        if (monsterX.length < count) {
+            int capacity = Math.max(count, monsterX.length * 2);
+            monsterX = new int[capacity];
+            monsterY = new int[capacity];
+            monsterKind = new byte[capacity];
+        }
+        this.monsterCount = count;
+        for (int i = 0; i < count; i++) {
+            monsterX[i] = monsters.getX(i);
+            monsterY[i] = monsters.getY(i);
+            monsterKind[i] = monsters.getKind(i);
+        }
+        this.won = won;
+        this.captured = true;
+    }
+
+    /**
+     * Returns whether the snapshot has been filled in by the engine.
+     * @return true once capture has been called
+     */
+    boolean isCaptured() {
+        return captured;
+    }
+
+    /**
+     * Returns the snapshot's copy of the tiles of the level.
+     * @return the tiles, which must not be changed
+     */
+    public TileGrid getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Returns the number of levels cleared, which identifies the level shown.
+     * @return the number of levels cleared
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the X position of the player.
+     * @return the player's X position
+     */
+    public int getPlayerX() {
+        return playerX;
+    }
+
+    /**
+     * Returns the Y position of the player.
+     * @return the player's Y position
+     */
+    public int getPlayerY() {
+        return playerY;
+    }
+
+    /**
+     * Returns the current health of the player.
+     * @return the player's health
+     */
+    public int getPlayerHealth() {
+        return playerHealth;
+    }
+
+    /**
+     * Returns the maximum health of the player.
+     * @return the player's maximum health
+     */
+    public int getPlayerMaxHealth() {
+        return playerMaxHealth;
+    }
+
+    /**
+     * Returns the X position of the fuel.
+     * @return the fuel's X position, or -1 if it has been collected
+     */
+    public int getFuelX() {
+        return fuelX;
+    }
+
+    /**
+     * Returns the Y position of the fuel.
+     * @return the fuel's Y position, or -1 if it has been collected
+     */
+    public int getFuelY() {
+        return fuelY;
+    }
+
+    /**
+     * Returns the X position of the health pickup.
+     * @return the health's X position, or -1 if it has been collected
+     */
+    public int getHealthX() {
+        return healthX;
+    }
+
+    /**
+     * Returns the Y position of the health pickup.
+     * @return the health's Y position, or -1 if it has been collected
+     */
+    public int getHealthY() {
+        return healthY;
+    }
+
+    /**
+     * Returns the number of monsters in the level.
+     * @return the number of monsters
+     */
+    public int getMonsterCount() {
+        return monsterCount;
+    }
+
+    /**
+     * Returns the X position of a monster.
+     * @param i The index of the monster
+     * @return the monster's X position
+     */
+    public int getMonsterX(int i) {
+        return monsterX[i];
+    }
+
+    /**
+     * Returns the Y position of a monster.
+     * @param i The index of the monster
+     * @return the monster's Y position
+     */
+    public int getMonsterY(int i) {
+        return monsterY[i];
+    }
+
+    /**
+     * Returns the kind of a monster.
+     * @param i The index of the monster
+     * @return MonsterStore.SEEKER or MonsterStore.CHASER
+     */
+    public byte getMonsterKind(int i) {
+        return monsterKind[i];
+    }
+
+    /**
+     * Returns whether the win overlay should be shown.
+     * @return true if the player has won the game
+     */
+    public boolean isWon() {
+        return won;
+    }
+
+    /**
+     * Returns whether the game over overlay should be shown.
+     * @return true if the player has run out of health
+     */
+    public boolean isLost() {
+        return playerHealth < 1;
+    }
+}
@@ -0,0 +1,80 @@
+package escapegame;
+
+import java.awt.event.KeyEvent;
+import java.util.Random;
+
+/**
+ * An InputPolicy that plays the game like a simple player would: it walks
+ * along the shortest path to the fuel and, once the fuel is collected, back to
+ * the car. The path is found with a FlowField aimed at the fuel or car, which
+ * is only worked out again when the level or target changes. Monsters are
+ * ignored. If the target cannot be reached a random arrow key is pressed. In
+ * a streaming world the target can be outside the window the engine plays
+ * on, and then the policy heads straight towards it until it is back inside.
+ */
+public class FuelSeekingPolicy implements InputPolicy {
+
+    /**
+     * The arrow keys in the order left, right, up and down, matching the steps
+     * below.
+     */
+    private static final int[] KEYS = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_UP, KeyEvent.VK_DOWN};
+    private static final int[] STEP_X = {-1, 1, 0, 0};
+    private static final int[] STEP_Y = {0, 0, -1, 1};
+
+    /**
+     * The distance from every tile to the fuel or car, created for the size
+     * of the first level seen.
+     */
+    private FlowField path;
+
+    /**
+     * Used to choose a key when there is no path to the target.
+     */
+    private final Random rng;
+
+    /**
+     * Creates a policy whose random choices come from the given seed.
+     * @param seed The seed for random key presses
+     */
+    public FuelSeekingPolicy(long seed) {
+        this.rng = new Random(seed);
+    }
+
+    /**
+     * Returns the arrow key that moves the player one step closer to the fuel,
+     * or to the car if the fuel has been collected.
+     * @param engine The engine running the game
+     * @return the key code of an arrow key
+     */
+    @Override
+    public int nextKey(GameEngine engine) {
+        if (path == null) {
+            path = new FlowField(engine.getGridWidth(), engine.getGridHeight());
+        }
+        Fuel fuel = engine.getFuel();
+        int targetX = fuel != null ? fuel.getX() : engine.getCarX();
+        int targetY = fuel != null ? fuel.getY() : engine.getCarY();
+        Human player = engine.getPlayer();
+        if (!engine.getTiles().contains(targetX, targetY)) {
+            int dx = targetX - player.getX();
+            int dy = targetY - player.getY();
+            if (Math.abs(dx) >= Math.abs(dy)) {
+                return dx < 0 ? KeyEvent.VK_LEFT : KeyEvent.VK_RIGHT;
+            }
+            return dy < 0 ? KeyEvent.VK_UP : KeyEvent.VK_DOWN;
+        }
+        path.update(engine.getTiles(), targetX, targetY);
+
+        int best = path.getDistance(player.getX(), player.getY());
+        int key = -1;
+        for (int i = 0; i < KEYS.length; i++) {
+            int d = path.getDistance(player.getX() + STEP_X[i], player.getY() + STEP_Y[i]);
+            if (d < best) {
+                best = d;
+                key = KEYS[i];
+            }
+        }
+        return key != -1 ? key : KEYS[rng.nextInt(KEYS.length)];
+    }
+}
@@ -0,0 +1,20 @@
+package escapegame;
+
+/**
+ * The GameDisplay interface is implemented by anything that can be passed the
+ * state of the game after the engine has changed it. The GameGUI class draws
+ * this state to the screen, while the HeadlessDisplay class lets an engine run
+ * without a window, for example when simulating many games at once.
+ */
+public interface GameDisplay {
+
+    /**
+     * Called by the engine whenever the level or the entities in it have been
+     * updated, usually at the end of a turn. This is called on the thread
+     * running the engine, which is not necessarily the Swing thread.
+     * @param frames The buffer holding the latest snapshot of the tiles,
+     * player, monsters and pickups of the current level. The snapshot is
+     * taken with FrameBuffer.acquire, always from the same thread.
+     */
+    void updateDisplay(FrameBuffer frames);
+}
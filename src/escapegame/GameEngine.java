@@ -1,13 +1,10 @@
 package escapegame;
 
-import javax.imageio.ImageIO;
-import javax.swing.*;
-import java.awt.*;
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
+import java.awt.event.KeyEvent;
 import java.util.Random;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The GameEngine class is responsible for managing information about the game,
@@ -20,8 +17,8 @@ public class GameEngine {
      * An enumeration type to represent different types of tiles that make up
      * the level. Each type has a corresponding image file that is used to draw
      * the right tile to the screen for each tile in a level. All types except
-     * for Walls are open for player movement. Walls will block player (but not
-     * monster) movement. Nests look like dirt but trigger the creation of a
+     * for Walls are open for player movement. Walls will block both player and
+     * monster movement. Nests look like dirt but trigger the creation of a
      * chaser when the player is next to them, then turn to dirt tiles. The Car
      * tile is the entry and exit point for the level.
      */
@@ -30,34 +27,75 @@ public class GameEngine {
     }
 
     /**
-     * The width of the level, measured in tiles. Changing this may cause the
-     * display to draw incorrectly, and as a minimum the size of the GUI would
-     * need to be adjusted.
+     * The default width of the level, measured in tiles. This is also the
+     * number of tiles the GUI shows across, larger levels scroll.
      */
     public static final int GRID_WIDTH = 25;
 
     /**
-     * The height of the level, measured in tiles. Changing this may cause the
-     * display to draw incorrectly, and as a minimum the size of the GUI would
-     * need to be adjusted.
+     * The default height of the level, measured in tiles. This is also the
+     * number of tiles the GUI shows down, larger levels scroll.
      */
     public static final int GRID_HEIGHT = 18;
 
+    /**
+     * The smallest width and height a level can have, measured in tiles. The
+     * road crosses the whole level, so on a level this size there are always
+     * at least two road tiles besides the Car for the Fuel and Health to
+     * spawn on, whatever the rest of the level is.
+     */
+    public static final int MIN_SIZE = 3;
+
+    /**
+     * The width and height of the levels created by this engine, measured in
+     * tiles. These are set when the engine is created and default to
+     * GRID_WIDTH and GRID_HEIGHT.
+     */
+    private final int gridWidth;
+    private final int gridHeight;
+
     /**
      * A random number generator that can be used to include randomised choices
      * in the creation of levels, in choosing places to spawn the player,
-     * monsters and fuel, and to randomise movement or other factors. It has a
-     * seed of 911 set to support debugging - a seeded generator will create the
-     * same values each time the program is run to help recreate bugs. Remove
-     * the seed for a random set of values every time.
+     * monsters and fuel, and to randomise movement or other factors. It is
+     * created from the seed given to the constructor - a seeded generator will
+     * create the same values each time the program is run to help recreate
+     * bugs, so a game can be replayed from its seed and the keys pressed.
+     */
+    private final Random rng;
+
+    /**
+     * The seed used to create rng.
+     */
+    private final long seed;
+
+    /**
+     * The change in X and Y position for a step left, right, up and down, used
+     * to look at the four tiles next to a tile.
+     */
+    private static final int[] STEP_X = {-1, 1, 0, 0};
+    private static final int[] STEP_Y = {0, 0, -1, 1};
+
+    /**
+     * The tiles around the player that a new chaser is spawned in, tried in
+     * order: diagonally below and to the right first, as it always was, then
+     * the other diagonals and then the tiles next to the player.
      */
-    private Random rng = new Random();
+    private static final int[] CHASER_X = {1, -1, 1, -1, 1, -1, 0, 0};
+    private static final int[] CHASER_Y = {1, 1, -1, -1, 0, 0, 1, -1};
 
     /**
      * The number of levels cleared by the player in this game. Can be used to
-     * generate harder games as the player clears levels.
+     * generate harder games as the player clears levels. Like the rest of the
+     * game's state it belongs to this engine, so several engines can run in
+     * the same program without affecting each other.
      */
-    private static int cleared = 0;
+    private int cleared = 0;
+
+    /**
+     * The number of levels the player has to clear to win the game.
+     */
+    public static final int LEVELS_TO_WIN = 5;
 
     /**
      * Tracks the current turn number. Used to control monster movement.
@@ -66,10 +104,8 @@ public class GameEngine {
 
     /**
      * The number of chasers added to the level - one is added every time the
-     * player moves into a Nest tile. This is used to track the position in the
-     * array of Chaser objects that new ones should be added. Whenever a Chaser
-     * is created this value should in incremented by one to ensure Chasers are
-     * not overwritten.
+     * player moves into a Nest tile. It goes back to 0 whenever the monsters
+     * are cleared.
      */
     private int numChasers = 0;
 
@@ -80,30 +116,31 @@ public class GameEngine {
     private int numSeekers = 5;
 
     /**
-     * The GUI associated with a GameEngine object. THis link allows the engine
-     * to pass level (tiles) and entity information to the GUI to be drawn.
+     * The display associated with a GameEngine object. This link allows the
+     * engine to pass level (tiles) and entity information to the GUI to be
+     * drawn, or to a HeadlessDisplay when no window is needed.
      */
-    private GameGUI gui;
+    private GameDisplay gui;
 
     /**
-     * The 2 dimensional array of tiles the represent the current level. The
-     * size of this array should use the GRID_HEIGHT and GRID_WIDTH attributes
-     * when it is created.
+     * The grid of tiles that represent the current level. The size of this
+     * grid should use the gridWidth and gridHeight attributes when it is
+     * created.
      */
-    private TileType[][] tiles;
+    private TileGrid tiles;
 
     /**
-     * An ArrayList of Point objects used to create and track possible locations
-     * to spawn the player, monsters and items.
+     * The tiles of the current level that monsters and items can still be
+     * spawned on. It is created once and refilled for every level.
      */
-    private ArrayList<Point> spawns;
+    private final SpawnPool spawns;
 
     /**
      * A Human object that is the current player. This object stores the state
      * information for the player, including the current position (which is a
      * pair of co-ordinates that corresponds to a tile in the current level)
      */
-    private static Human player;
+    private Human player;
 
     /**
      * A Fuel object that must be collected by the player in order to move to
@@ -121,22 +158,70 @@ public class GameEngine {
     private boolean fuelCollected = false;
 
     /**
-     * An array of Seeker objects that represents the seekers in the current
-     * level. Elements in this array should be of the type Seeker, meaning that
-     * a monster is alive and needs to be drawn or moved, or should be null
-     * which means nothing is drawn or processed for movement. Null values in
-     * this array are skipped during drawing and movement processing.
+     * The seekers and chasers in the current level. Seekers are added when a
+     * level starts and a chaser is added each time the player moves onto a
+     * nest. The store also tracks which tiles are taken by each kind of
+     * monster, which stops two monsters of the same kind moving into the same
+     * tile.
+     */
+    private final MonsterStore monsters;
+
+    /**
+     * The number of steps from the player that monsters find their way around
+     * walls within. Monsters further away than this head straight for the
+     * player instead, until they are close enough. The default level is much
+     * smaller than this, so there every monster that can reach the player
+     * follows a path.
+     */
+    public static final int PATH_RADIUS = 128;
+
+    /**
+     * The distance from every tile within PATH_RADIUS steps of the player to
+     * the player, brought up to date once on each turn that monsters move and
+     * shared by all of them so that they can find their way around walls. It
+     * is only worked out again when the player has moved since the last time,
+     * and then only the window around the player is searched, so a turn costs
+     * the same on a large level as on a small one.
+     */
+    private final FlowField pathToPlayer;
+
+    /**
+     * The builder that lays out the tiles of each level this engine
+     * generates, using the engine's own random number generator and spawn
+     * pool.
+     */
+    private final LevelBuilder layout;
+
+    /**
+     * A second builder used to build the next level in the background, with
+     * its own spawn pool, created the first time it is needed and reused for
+     * every level after that, and the task building the next level, or null
+     * if none has been started. The seed and number of seekers the next level
+     * is built with are kept so that it can be built again on this thread if
+     * building it in the background fails.
      */
-    private Seeker[] seekers;
+    private LevelBuilder levelBuilder;
+    private CompletableFuture<LevelBuilder> nextLevel;
+    private long nextLevelSeed;
+    private int nextLevelSeekers;
 
     /**
-     * An array of Chaser objects that represents the chasers in the current
-     * level. Elements in this array should be of the type Chaser, meaning that
-     * a monster is alive and needs to be drawn or moved, or should be null
-     * which means nothing is drawn or processed for movement. Null values in
-     * this array are skipped during drawing and movement processing.
+     * The world this engine streams its levels from, or null if every level
+     * is generated on its own. With a world the level is a window of
+     * gridWidth x gridHeight tiles onto it, whose top left tile is at
+     * (worldX, worldY) in the world. Everything in the engine uses positions
+     * within the window, and the window is moved along as the player nears
+     * its edge, so only the window and the world's chunks around it are ever
+     * in memory however far the player goes.
      */
-    private Chaser[] chasers;
+    private final ChunkedWorld world;
+    private int worldX;
+    private int worldY;
+
+    /**
+     * The snapshots used to pass the state of the game to the display.
+     */
+    private final FrameBuffer frames = new FrameBuffer();
 
     /**
      * A Health object that can be collected by the player in order to increase
@@ -154,18 +239,244 @@ public class GameEngine {
 
     /**
      * Constructor that creates a GameEngine object and connects it with a
-     * GameGUI object.
+     * GameDisplay object, normally a GameGUI.
+     *
+     * @param gui The GameDisplay object that this engine will pass information
+     * to in order to draw levels and entities to the screen. A HeadlessDisplay
+     * can be passed to run the engine without a window.
+     */
+    public GameEngine(GameDisplay gui) {
+        this(gui, GRID_WIDTH, GRID_HEIGHT);
+    }
+
+    /**
+     * Constructor that creates a GameEngine object whose levels have the given
+     * size and connects it with a GameDisplay object.
+     *
+     * @param gui The GameDisplay object that this engine will pass information
+     * to in order to draw levels and entities to the screen.
+     * @param width The width of each level, measured in tiles
+     * @param height The height of each level, measured in tiles
+     */
+    public GameEngine(GameDisplay gui, int width, int height) {
+        this(gui, width, height, new Random().nextLong());
+    }
+
+    /**
+     * Constructor that creates a GameEngine object whose levels have the given
+     * size and whose random choices come from the given seed. Two engines
+     * created with the same size and seed and given the same keys will play
+     * exactly the same game.
+     *
+     * @param gui The GameDisplay object that this engine will pass information
+     * to in order to draw levels and entities to the screen.
+     * @param width The width of each level, measured in tiles
+     * @param height The height of each level, measured in tiles
+     * @param seed The seed for the engine's random number generator
+     */
+    public GameEngine(GameDisplay gui, int width, int height, long seed) {
+        this(gui, null, width, height, seed);
+    }
+
+    /**
+     * Constructor that creates a GameEngine object that plays in a streaming
+     * world rather than on levels generated on their own. The level is a
+     * window of the given size onto the world, which moves along with the
+     * player, and the tiles changed in it are written back to the world when
+     * it moves. Each new level is laid out, with its road and Car, in a window
+     * around the Car of the last one. The world is only used on the thread
+     * running the game.
      *
-     * @param gui The GameGUI object that this engine will pass information to
-     * in order to draw levels and entities to the screen.
+     * @param gui The GameDisplay object that this engine will pass information
+     * to in order to draw levels and entities to the screen.
+     * @param world The world to play in, or null to generate every level on
+     * its own
+     * @param width The width of the window onto the world, measured in tiles
+     * @param height The height of the window onto the world, measured in tiles
+     * @param seed The seed for the engine's random number generator
+     * @throws IllegalArgumentException if the window is smaller than MIN_SIZE
+     * or larger than the world
      */
-    public GameEngine(GameGUI gui) {
+    public GameEngine(GameDisplay gui, ChunkedWorld world, int width, int height, long seed) {
+        checkSize(width, height);
+        if (world != null && (width > world.getWidth() || height > world.getHeight())) {
+            throw new IllegalArgumentException("A window of " + width + "x" + height + " tiles does not fit in a world of "
+                    + world.getWidth() + "x" + world.getHeight());
+        }
+        this.world = world;
         this.gui = gui;
+        this.seed = seed;
+        this.rng = new Random(seed);
+        this.gridWidth = width;
+        this.gridHeight = height;
+        this.monsters = new MonsterStore(width, height);
+        this.pathToPlayer = new FlowField(width, height, PATH_RADIUS);
+        this.spawns = new SpawnPool(width, height);
+        this.layout = new LevelBuilder(width, height, spawns);
+    }
+
+    /**
+     * Checks that levels of the given size can be played.
+     * @param width The width of each level, measured in tiles
+     * @param height The height of each level, measured in tiles
+     * @throws IllegalArgumentException if either is less than MIN_SIZE
+     */
+    public static void checkSize(int width, int height) {
+        if (width < MIN_SIZE || height < MIN_SIZE) {
+            throw new IllegalArgumentException("Level must be at least " + MIN_SIZE + "x" + MIN_SIZE + " tiles, was " + width + "x" + height);
+        }
+    }
+
+    /**
+     * Returns the seed of the engine's random number generator, which can be
+     * passed to a new engine to play the same game again.
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the width of the levels created by this engine.
+     * @return the width of a level in tiles
+     */
+    public int getGridWidth() {
+        return gridWidth;
+    }
+
+    /**
+     * Returns the height of the levels created by this engine.
+     * @return the height of a level in tiles
+     */
+    public int getGridHeight() {
+        return gridHeight;
+    }
+
+    /**
+     * Returns the X position in the streaming world of the top left tile of
+     * the current level.
+     * @return the X position of the window, or 0 if the engine has no world
+     */
+    public int getWorldX() {
+        return worldX;
+    }
+
+    /**
+     * Returns the Y position in the streaming world of the top left tile of
+     * the current level.
+     * @return the Y position of the window, or 0 if the engine has no world
+     */
+    public int getWorldY() {
+        return worldY;
+    }
+
+    /**
+     * Sets the number of seekers spawned in the first level. One more is
+     * spawned in each level after that, as long as the level has room for
+     * them. Must be called before startGame.
+     * @param seekers The number of seekers in the first level
+     */
+    public void setNumSeekers(int seekers) {
+        numSeekers = seekers;
+    }
+
+    /**
+     * Returns the number of turns played so far.
+     * @return the number of turns performed by doTurn
+     */
+    public int getTurnsPlayed() {
+        return turnNumber - 1;
+    }
+
+    /**
+     * Returns the number of levels the player has cleared.
+     * @return the number of levels cleared in this game
+     */
+    public int getLevelsCleared() {
+        return cleared;
+    }
+
+    /**
+     * Checks whether the player has cleared enough levels to win.
+     * @return true if the game has been won
+     */
+    public boolean isWon() {
+        return cleared >= LEVELS_TO_WIN;
+    }
+
+    /**
+     * Checks whether the player has run out of health.
+     * @return true if the game has been lost
+     */
+    public boolean isLost() {
+        return player.getHealth() < 1;
+    }
+
+    /**
+     * Returns the player, so that its position and health can be read. The
+     * player should not be moved except through handleKey.
+     * @return the player of the current game
+     */
+    public Human getPlayer() {
+        return player;
+    }
+
+    /**
+     * Returns the tiles of the current level. They must not be changed by the
+     * caller.
+     * @return the tiles of the current level
+     */
+    TileGrid getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Returns the monsters of the current level. Only used by the benchmarks,
+     * which add monsters directly.
+     * @return the monsters of the current level
+     */
+    MonsterStore getMonsters() {
+        return monsters;
+    }
+
+    /**
+     * Removes every monster and finds the spawn positions of the current level
+     * again, so that spawnSeekers can be run more than once on the same level.
+     * Only used by the benchmarks.
+     */
+    void resetSpawns() {
+        getSpawns();
+        monsters.clear();
+        numChasers = 0;
+    }
+
+    /**
+     * Returns the fuel of the current level.
+     * @return the fuel, or null once it has been collected
+     */
+    public Fuel getFuel() {
+        return fuel;
+    }
+
+    /**
+     * Returns the X position of the Car tile in the current level.
+     * @return the X position of the car
+     */
+    public int getCarX() {
+        return isCar(roadX, carY) ? roadX : carX;
+    }
+
+    /**
+     * Returns the Y position of the Car tile in the current level.
+     * @return the Y position of the car
+     */
+    public int getCarY() {
+        return isCar(roadX, carY) ? carY : roadY;
     }
 
     /**
-     * variables to store random numbers from GRID_WIDTH and
-     * GRID_HEIGHT to be used for positioning the car on the road and randomly generate the
+     * variables to store random numbers from gridWidth and
+     * gridHeight to be used for positioning the car on the road and randomly generate the
      * road in a column/row.
      */
     int carX;
@@ -174,115 +485,70 @@ public class GameEngine {
     int roadY;
 
     /**
-     * this method allows for the variables with the random integers assigned to
-     * them to be passed in a parameter for other methods to access them.
-     *
-     * @param cX
-     * @param Cy
-     * @param rX
-     * @param rY
+     * Checks whether a tile is inside the level and is the Car. In a
+     * streaming world the Car can be left outside the window.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     * @return true if the tile is the Car
      */
-    private void randomSpawns(int cX, int Cy, int rX, int rY) {
-        carX = rng.nextInt(GRID_WIDTH);
-        carY = rng.nextInt(GRID_HEIGHT);
-        roadX = rng.nextInt(GRID_WIDTH);
-        roadY = rng.nextInt(GRID_HEIGHT);
+    private boolean isCar(int x, int y) {
+        return tiles.contains(x, y) && tiles.get(x, y) == TileType.CAR;
     }
 
     /**
-     * Generates a new level. The method builds a 2D array of TileTypes that
+     * Generates a new level. The method builds a grid of TileTypes that
      * will be used to draw tiles to the screen and to add a variety of elements
      * into each level. Tiles can be car, grass, dirt, nests, road or wall. This
      * method should contain the implementation of an algorithm to create an
-     * interesting and varied level each time it is called.
+     * interesting and varied level each time it is called. The tiles are laid
+     * out by a LevelBuilder using rng. The grass, dirt, nest and wall tiles are
+     * filled in by a LevelGenerator, which fills large levels on several
+     * threads.
      *
      * Second algorithm is used to generate the road tiles in a row/column
      * and position the car on a random road tile.
      *
-     * @return A 2D array of TileTypes representing the tiles in the current
-     * level of the map. The size of this array should use the width and height
-     * attributes of the level specified by GRID_WIDTH and GRID_HEIGHT.
-     */
-    private TileType[][] generateLevel() {
-        tiles = new TileType[GRID_WIDTH][GRID_HEIGHT];
-        randomSpawns(carX, carY, roadX, roadY);
-        for (int i = 0; i < tiles.length; i++) {
-            for (int j = 0; j < tiles[i].length; j++) {
-                int num = rng.nextInt(100);
-                if (num >= 0 && num < 100) {
-                    tiles[i][j] = TileType.GRASS;
-                }
-                if (num >= 0 && num < 50) {
-                    tiles[i][j] = TileType.DIRT;
-                }
-                if (num >= 0 && num < 10) {
-                    tiles[i][j] = TileType.NEST;
-                }
-                if (num >= 0 && num < 5) {
-                    tiles[i][j] = TileType.WALL;
-                }
-            }
-        }
-        // 0 represents width, 1 represents height
-        int randomNum = rng.nextInt(2);
-        if (randomNum == 0) {
-            for (int i = 0; i < GRID_WIDTH; i++) {
-                tiles[i][roadY] = TileType.ROAD;
-                tiles[carX][roadY] = TileType.CAR;
-            }
-        } else {
-            for (int i = 0; i < GRID_HEIGHT; i++) {
-                tiles[roadX][i] = TileType.ROAD;
-                tiles[roadX][carY] = TileType.CAR;
-            }
-        }
+     * @return A TileGrid representing the tiles in the current level of the
+     * map. The size of this grid should use the width and height attributes of
+     * the level specified by gridWidth and gridHeight.
+     */
+    TileGrid generateLevel() {
+        tiles = layout.layOut(rng);
+        carX = layout.carX;
+        carY = layout.carY;
+        roadX = layout.roadX;
+        roadY = layout.roadY;
         return tiles;
     }
 
     /**
-     * Generates spawn points for entities. The method processes the tiles array
-     * and finds tiles that are suitable for spawning, i.e. grass, dirt, road
-     * and nest tiles. Suitable tiles should be added to the ArrayList that will
-     * be returned as Point objects - Points are a simple kind of object that
-     * contain an X and a Y co-ordinate stored using the int primitive type.
+     * Finds the spawn points for entities. The method refills the spawn pool
+     * with the tiles that are suitable for spawning, i.e. grass, dirt, road
+     * and nest tiles. Each tile is stored as a single int, so nothing is
+     * allocated however big the level is.
      *
-     * @return An ArrayList containing Point objects representing suitable X and
-     * Y co-ordinates in the current level that entities can be spawned in.
-     */
-    private ArrayList<Point> getSpawns() {
-        ArrayList<Point> spawns = new ArrayList<Point>();
-        for (int i = 0; i < tiles.length; i++) {
-            for (int j = 0; j < tiles[i].length; j++) {
-                if (tiles[i][j] == TileType.GRASS || tiles[i][j] == TileType.DIRT || tiles[i][j] == TileType.ROAD || tiles[i][j] == TileType.NEST) {
-                    Point point = new Point(i, j);
-                    spawns.add(point);
-                }
-            }
-        }
+     * @return The spawn pool, holding every tile in the current level that
+     * entities can be spawned in.
+     */
+    SpawnPool getSpawns() {
+        spawns.fill(tiles);
         return spawns;
     }
 
     /**
      * Spawns seekers in suitable locations in the current level. The method
-     * uses the spawns ArrayList to pick suitable positions to add seekers,
-     * removing these positions from the spawns ArrayList as they are used
-     * (using the remove() method) to avoid multiple entities spawning in the
-     * same location. The method creates seekers by instantiating the Seeker
-     * class, setting health and the X and Y position for the seeker using the
-     * Point object removed from the spawns ArrayList.
-     *
-     * @return An array of Seeker objects representing the aliens for the
-     * current level
+     * takes a random tile from the spawn pool for each seeker, which removes
+     * it from the pool so that no two entities spawn in the same location.
+     * Each seeker is added to the monsters store at the X and Y position of
+     * the tile taken. Two tiles are always left for the Fuel and Health, so
+     * on a small level with few open tiles fewer seekers may be spawned.
      */
-    private Seeker[] spawnSeekers() {
-        seekers = new Seeker[numSeekers];
-        for (int i = 0; i < seekers.length; i++) {
-            Point point = spawns.get(rng.nextInt(spawns.size()));
-            seekers[i] = new Seeker(point.x, point.y);
-            spawns.remove(point.x);
-            spawns.remove(point.y);
+    void spawnSeekers() {
+        int seekers = Math.min(numSeekers, spawns.size() - 2);
+        for (int i = 0; i < seekers; i++) {
+            int cell = spawns.take(rng);
+            monsters.add(MonsterStore.SEEKER, spawns.getX(cell), spawns.getY(cell));
         }
-        return seekers;
     }
 
     /**
@@ -295,47 +561,39 @@ public class GameEngine {
      * @return A Human object representing the player in the game
      */
     private Human spawnPlayer() {
-        if (tiles[roadX][carY] == TileType.CAR) {
-            Human player = new Human(100, roadX, carY - 1);
+        if (isCar(roadX, carY)) {
+            Human player = new Human(100, roadX, carY > 0 ? carY - 1 : carY + 1);
             return player;
         } else {
-            Human player = new Human(100, carX + 1, roadY);
+            Human player = new Human(100, carX < gridWidth - 1 ? carX + 1 : carX - 1, roadY);
             return player;
         }
     }
 
     /**
-     * Spawns a Fuel object in the game. The method uses the spawns ArrayList to
-     * pick a suitable position for the Fuel in the game, removing the chosen
-     * position from the ArrayList to avoid multiple entities being created in
-     * the same position. The method works by instantiating the Fuel class and
-     * returning the Fuel object.
+     * Spawns a Fuel object in the game. The method takes a suitable position
+     * for the Fuel from the spawn pool, which removes it from the pool to
+     * avoid multiple entities being created in the same position. The method
+     * works by instantiating the Fuel class and returning the Fuel object.
      *
      * @return A Fuel object representing the fuel in the game
      */
     private Fuel spawnFuel() {
-        Point point = spawns.get(rng.nextInt(spawns.size()));
-        Fuel fuel = new Fuel(point.x, point.y);
-        spawns.remove(point.x);
-        spawns.remove(point.y);
-        return fuel;
+        int cell = spawns.take(rng);
+        return new Fuel(spawns.getX(cell), spawns.getY(cell));
     }
 
     /**
-     * Spawns a Health object in the game. The method uses the spawns ArrayList to
-     * pick a suitable position for the Health in the game, removing the chosen
-     * position from the ArrayList to avoid multiple entities being created in
-     * the same position. The method works by instantiating the Health class and
-     * returning the Health object.
+     * Spawns a Health object in the game. The method takes a suitable position
+     * for the Health from the spawn pool, which removes it from the pool to
+     * avoid multiple entities being created in the same position. The method
+     * works by instantiating the Health class and returning the Health object.
      *
      * @return A Health object representing the health in the game
      */
     private Health spawnHealth() {
-        Point point = spawns.get(rng.nextInt(spawns.size()));
-        Health health = new Health(point.x, point.y);
-        spawns.remove(point.x);
-        spawns.remove(point.y);
-        return health;
+        int cell = spawns.take(rng);
+        return new Health(spawns.getX(cell), spawns.getY(cell));
     }
 
     /**
@@ -350,7 +608,7 @@ public class GameEngine {
     public void movePlayerLeft() {
         int playerX = player.getX();
         int playerY = player.getY();
-        if (playerX == 0 || tiles[playerX - 1][playerY] == TileType.WALL) {
+        if (playerX == 0 || tiles.get(playerX - 1, playerY) == TileType.WALL) {
             player.setPosition(playerX, playerY);
         } else {
             player.setPosition(playerX - 1, playerY);
@@ -369,7 +627,7 @@ public class GameEngine {
     public void movePlayerRight() {
         int playerX = player.getX();
         int playerY = player.getY();
-        if (playerX == 24 || tiles[playerX + 1][playerY] == TileType.WALL) {
+        if (playerX == gridWidth - 1 || tiles.get(playerX + 1, playerY) == TileType.WALL) {
             player.setPosition(playerX, playerY);
         } else {
             player.setPosition(playerX + 1, playerY);
@@ -388,7 +646,7 @@ public class GameEngine {
     public void movePlayerUp() {
         int playerX = player.getX();
         int playerY = player.getY();
-        if (playerY == 0 || tiles[playerX][playerY - 1] == TileType.WALL) {
+        if (playerY == 0 || tiles.get(playerX, playerY - 1) == TileType.WALL) {
             player.setPosition(playerX, playerY);
         } else {
             player.setPosition(playerX, playerY - 1);
@@ -407,7 +665,7 @@ public class GameEngine {
     public void movePlayerDown() {
         int playerX = player.getX();
         int playerY = player.getY();
-        if (playerY == 17 || tiles[playerX][playerY + 1] == TileType.WALL) {
+        if (playerY == gridHeight - 1 || tiles.get(playerX, playerY + 1) == TileType.WALL) {
             player.setPosition(playerX, playerY);
         } else {
             player.setPosition(playerX, playerY + 1);
@@ -415,165 +673,321 @@ public class GameEngine {
     }
 
     /**
-     * Moves all seekers on the current level. The method checks for non-null
-     * elements in the seekers array and calls the moveSeeker method for each
-     * one that is not null.
+     * Moves all seekers on the current level by calling the moveMonster method
+     * for each monster in the store that is a seeker.
      */
-    private void moveSeekers() {
-        for (int i = 0; i < seekers.length; i++) {
-            if (seekers[i] != null) {
-                moveSeeker(seekers[i]);
+    void moveSeekers() {
+        for (int i = 0; i < monsters.size(); i++) {
+            if (monsters.getKind(i) == MonsterStore.SEEKER) {
+                moveMonster(i);
             }
         }
     }
 
     /**
-     * Moves a specific seeker in the game closer to the player. The method
-     * updates the X and Y attributes of the seeker to reflect its new position.
-     * The new position should be closer to the player, by finding the
-     * difference between the X or Y co-ordinate of this seeker and the player,
-     * determining if it is positive or negative and then moving up/down or
-     * left/right to change the value towards zero. If a seeker attempts to move
-     * into a tile containing the player, the player should have their health
-     * reduced by some amount.
+     * Moves all chasers on the current level by calling the moveMonster method
+     * for each monster in the store that is a chaser.
+     */
+    void moveChasers() {
+        for (int i = 0; i < monsters.size(); i++) {
+            if (monsters.getKind(i) == MonsterStore.CHASER) {
+                moveMonster(i);
+            }
+        }
+    }
+
+    /**
+     * Moves a monster one tile closer to the player. The monster steps to the
+     * neighbouring tile with the smallest distance to the player in the
+     * pathToPlayer flow field, as long as it is nearer than the monster's
+     * current tile and not taken by another monster of the same kind. A
+     * monster that the flow field does not reach, because it is cut off from
+     * the player or is more than PATH_RADIUS steps away, steps along whichever axis it is furthest from the player
+     * on instead, or along the other axis if that tile is blocked. These
+     * steps are only ever onto open tiles inside the level, so walls block
+     * every monster. If the monster ends up in the tile containing the
+     * player, the player has their health reduced.
      *
-     * @param a The Seeker that needs to be moved
+     * @param m The index of the monster in the monsters store
      */
-    private void moveSeeker(Seeker a) {
-        int seekerX = a.getX();
-        int seekerY = a.getY();
+    private void moveMonster(int m) {
+        int x = monsters.getX(m);
+        int y = monsters.getY(m);
+        byte kind = monsters.getKind(m);
         int playerX = player.getX();
         int playerY = player.getY();
 
-        int differenceX = playerX - seekerX;
-        int differenceY = playerY - seekerY;
-
-        boolean canMove = true;
-        for (int i = 0; i < seekers.length; i++) {
-            Seeker seeker = seekers[i];
-            if (differenceX < 0 && a.getX() - 1 == seeker.getX() && a.getY() == seeker.getY()) {
-                canMove = false;
-            }
-            if (differenceX > 0 && a.getX() + 1 == seeker.getX() && a.getY() == seeker.getY()) {
-                canMove = false;
+        int best = pathToPlayer.getDistance(x, y);
+        if (best != FlowField.UNREACHABLE) {
+            int bestX = x;
+            int bestY = y;
+            for (int i = 0; i < 4; i++) {
+                int nextX = x + STEP_X[i];
+                int nextY = y + STEP_Y[i];
+                int next = pathToPlayer.getDistance(nextX, nextY);
+                if (next < best && !monsters.isOccupied(kind, nextX, nextY)) {
+                    best = next;
+                    bestX = nextX;
+                    bestY = nextY;
+                }
             }
-            if (differenceY > 0 && a.getX() == seeker.getX() && a.getY() + 1 == seeker.getY()) {
-                canMove = false;
+            if (bestX != x || bestY != y) {
+                monsters.move(m, bestX, bestY);
             }
-            if (differenceY < 0 && a.getX() == seeker.getX() && a.getY() - 1 == seeker.getY()) {
-                canMove = false;
+        } else {
+            int stepX = Integer.signum(playerX - x);
+            int stepY = Integer.signum(playerY - y);
+            if (Math.abs(playerX - x) >= Math.abs(playerY - y)) {
+                if (!stepMonster(m, kind, x + stepX, y)) {
+                    stepMonster(m, kind, x, y + stepY);
+                }
+            } else if (!stepMonster(m, kind, x, y + stepY)) {
+                stepMonster(m, kind, x + stepX, y);
             }
         }
-        if (differenceX < 0 && canMove) {
-            a.setPosition(a.getX() - 1, a.getY());
-        }
-        if (differenceX > 0 && canMove) {
-            a.setPosition(a.getX() + 1, a.getY());
-        }
-        if (differenceY > 0 && canMove) {
-            a.setPosition(a.getX(), a.getY() + 1);
-        }
-        if (differenceY < 0 && canMove) {
-            a.setPosition(a.getX(), a.getY() - 1);
-        }
-        if (a.getX() == playerX && a.getY() == playerY) {
+        if (monsters.getX(m) == playerX && monsters.getY(m) == playerY) {
             player.changeHealth(-10);
         }
     }
 
     /**
-     * Moves all chasers on the current level. The method checks for non-null
-     * elements in the chasers array and calls the moveChaser method for each
-     * one that is not null.
+     * Moves a monster to a neighbouring tile if it is open, inside the level
+     * and not taken by another monster of the same kind.
+     * @param m The index of the monster in the monsters store
+     * @param kind The kind of the monster
+     * @param nextX The X position of the tile to move to
+     * @param nextY The Y position of the tile to move to
+     * @return true if the monster moved
      */
-    private void moveChasers() {
-        for (int i = 0; i < chasers.length; i++) {
-            if (chasers[i] != null) {
-                moveChaser(chasers[i]);
-            }
+    private boolean stepMonster(int m, byte kind, int nextX, int nextY) {
+        if (nextX == monsters.getX(m) && nextY == monsters.getY(m)) {
+            return false;
+        }
+        if (!isOpen(nextX, nextY) || monsters.isOccupied(kind, nextX, nextY)) {
+            return false;
         }
+        monsters.move(m, nextX, nextY);
+        return true;
     }
 
     /**
-     * Moves a specific chaser in the game closer to the player. The method
-     * updates the X and Y attributes of the chaser to reflect its new position.
-     * The new position should be closer to the player, by finding the
-     * difference between the X or Y co-ordinate of this chaser and the player,
-     * determining if it is positive or negative and then moving up/down or
-     * left/right to decrease the value towards a distance of zero. If a chaser
-     * attempts to move into a tile with the player, the players health should
-     * be reduced by some amount instead.
-     *
-     * @param c The Chaser that needs to be moved
+     * Checks whether a tile is inside the level and is not a wall, so that a
+     * monster can stand in it.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     * @return true if the tile is open
      */
-    private void moveChaser(Chaser c) {
-        int playerX = player.getX();
-        int playerY = player.getY();
-        int chaserX = c.getX();
-        int chaserY = c.getY();
-
-        int differenceX = playerX - chaserX;
-        int differenceY = playerY - chaserY;
-        boolean canMove = true;
-        for (int i = 0; i < chasers.length; i++) {
-            if (chasers[i] == null) {
-                break;
-            } else {
-                Chaser chaser = chasers[i];
-                if (differenceX < 0 && c.getX() - 1 == chaser.getX() && c.getY() == chaser.getY()) {
-                    canMove = false;
-                }
-                if (differenceX > 0 && c.getX() + 1 == chaser.getX() && c.getY() == chaser.getY()) {
-                    canMove = false;
-                }
-                if (differenceY > 0 && c.getX() == chaser.getX() && c.getY() + 1 == chaser.getY()) {
-                    canMove = false;
-                }
-                if (differenceY < 0 && c.getX() == chaser.getX() && c.getY() - 1 == chaser.getY()) {
-                    canMove = false;
-                }
+    private boolean isOpen(int x, int y) {
+        return tiles.contains(x, y) && tiles.get(x, y) != TileType.WALL;
+    }
+
+    /**
+     * Spawns a chaser next to the player, in the first open tile of those
+     * listed in CHASER_X and CHASER_Y. If the player is walled in on every
+     * side the chaser is spawned in the player's own tile.
+     * @param playerX The X position of the player
+     * @param playerY The Y position of the player
+     */
+    private void spawnChaser(int playerX, int playerY) {
+        for (int i = 0; i < CHASER_X.length; i++) {
+            int x = playerX + CHASER_X[i];
+            int y = playerY + CHASER_Y[i];
+            if (isOpen(x, y)) {
+                monsters.add(MonsterStore.CHASER, x, y);
+                return;
             }
         }
-        if (differenceX < 0 && canMove) {
-            c.setPosition(c.getX() - 1, c.getY());
-        }
-        if (differenceX > 0 && canMove) {
-            c.setPosition(c.getX() + 1, c.getY());
-        }
-        if (differenceY > 0 && canMove) {
-            c.setPosition(c.getX(), c.getY() + 1);
+        monsters.add(MonsterStore.CHASER, playerX, playerY);
+    }
+
+    /**
+     * Starts building the next level in the background, so that it is ready
+     * by the time the player gets back to the Car. Called when the player
+     * collects the Fuel. The level is built by levelBuilder from a seed taken
+     * from rng here, so the level is the same however long it takes to build.
+     * levelBuilder holds only the new level's tiles, spawn pool and starting
+     * positions, so nothing but those is allocated for it.
+     * The common pool is named because CompletableFuture would otherwise start
+     * a new thread for every level on a machine with one or two cores.
+     * Nothing is built in the background in a streaming world, as the world
+     * can only be used on this thread, so newLevel builds it instead.
+     */
+    private void prepareNextLevel() {
+        if (world != null) {
+            return;
         }
-        if (differenceY < 0 && canMove) {
-            c.setPosition(c.getX(), c.getY() - 1);
-        }
-        if (c.getX() == playerX && c.getY() == playerY) {
-            player.changeHealth(-10);
+        if (levelBuilder == null) {
+            levelBuilder = new LevelBuilder(gridWidth, gridHeight, new SpawnPool(gridWidth, gridHeight));
         }
+        final LevelBuilder builder = levelBuilder;
+        final long levelSeed = rng.nextLong();
+        final int seekers = numSeekers + 1;
+        nextLevelSeed = levelSeed;
+        nextLevelSeekers = seekers;
+        nextLevel = CompletableFuture.supplyAsync(() -> {
+            builder.build(levelSeed, seekers);
+            return builder;
+        }, ForkJoinPool.commonPool());
     }
 
     /**
      * Called in response to the player collecting the Fuel and returning to the
-     * Car tile. The method increases the valued of cleared by one, resets the
-     * numChasers variable to zero, sets fuelCollected to false, generates a new
-     * level by calling thegenerateLevel method, fills the spawns ArrayList with
-     * suitable spawn locations, then spawns Seekers, clears the chasers array
-     * and spawns the Fuel. Finally it places the player in the new level by
-     * calling the placePlayer() method. Note that a new player object should
-     * not be created here as this will reset the player's health to maximum.
+     * Car tile. The method increases the valued of cleared by one, sets
+     * fuelCollected to false and swaps in the next level, which was started in
+     * the background when the Fuel was collected. If it is not finished yet
+     * the method waits for it, and if building it failed it is built again
+     * here from the same seed. In a streaming world the level is built here
+     * by buildWorldLevel instead. The tiles, Car, Seekers, Fuel and Health of the
+     * new level all replace those of the old level together on this thread,
+     * so nothing ever sees half of each. Finally it places the player in the
+     * new level by calling the placePlayer() method. Note that a new player
+     * object should not be created here as this will reset the player's health
+     * to maximum.
      */
     private void newLevel() {
+        long start = GameMetrics.now();
         cleared++;
-        numSeekers++;
-        tiles = generateLevel();
-        spawns = getSpawns();
-        seekers = spawnSeekers();
-        chasers = new Chaser[50];
+        LevelBuilder next;
+        if (world != null) {
+            next = buildWorldLevel();
+        } else {
+            if (nextLevel == null) {
+                prepareNextLevel();
+            }
+            try {
+                next = nextLevel.join();
+            } catch (CompletionException e) {
+                System.out.println("Building the next level failed, building it again: " + e.getCause());
+                levelBuilder.build(nextLevelSeed, nextLevelSeekers);
+                next = levelBuilder;
+            }
+            nextLevel = null;
+        }
+        numSeekers = next.getSeekerCount();
+        tiles = next.tiles;
+        carX = next.carX;
+        carY = next.carY;
+        roadX = next.roadX;
+        roadY = next.roadY;
+        fuel = new Fuel(next.getX(next.fuelCell), next.getY(next.fuelCell));
+        health = new Health(next.getX(next.healthCell), next.getY(next.healthCell));
+        monsters.clear();
+        numChasers = 0;
+        for (int i = 0; i < next.getSeekerCount(); i++) {
+            monsters.add(MonsterStore.SEEKER, next.getSeekerX(i), next.getSeekerY(i));
+        }
+        next.tiles = null;
         placePlayer();
-        fuel = spawnFuel();
-        health = spawnHealth();
         fuelCollected = false;
         healthCollected = false;
-        gui.updateDisplay(tiles, player, seekers, chasers, fuel, health);
+        publishFrame();
+        GameMetrics.NEW_LEVEL.since(start);
+    }
+
+    /**
+     * Builds the next level of a streaming world. The tiles of the current
+     * window are written back to the world, then the window is placed around
+     * the Car, as far as the edges of the world allow, and a new level is laid
+     * out in it by layout, with its own road and Car over the world's tiles.
+     * @return the builder holding the new level
+     */
+    private LevelBuilder buildWorldLevel() {
+        tiles.storeTo(world, worldX, worldY);
+        worldX = clamp(worldX + getCarX() - gridWidth / 2, world.getWidth() - gridWidth);
+        worldY = clamp(worldY + getCarY() - gridHeight / 2, world.getHeight() - gridHeight);
+        layout.setTerrain(world, worldX, worldY);
+        layout.build(rng.nextLong(), numSeekers + 1);
+        return layout;
+    }
+
+    /**
+     * Moves the window onto a streaming world when the player has come
+     * within a quarter of its width or height of its edge, so that it is
+     * centred on the player again, as far as the edges of the world allow.
+     * Does nothing if the engine has no world.
+     */
+    private void followPlayer() {
+        if (world == null) {
+            return;
+        }
+        int x = player.getX();
+        int y = player.getY();
+        int marginX = Math.max(1, gridWidth / 4);
+        int marginY = Math.max(1, gridHeight / 4);
+        if (x >= marginX && x < gridWidth - marginX && y >= marginY && y < gridHeight - marginY) {
+            return;
+        }
+        int newX = clamp(worldX + x - gridWidth / 2, world.getWidth() - gridWidth);
+        int newY = clamp(worldY + y - gridHeight / 2, world.getHeight() - gridHeight);
+        if (newX != worldX || newY != worldY) {
+            moveWindow(newX, newY);
+        }
+    }
+
+    /**
+     * Moves the window onto a streaming world. The tiles of the old window
+     * are written back to the world and a new grid is filled from the new
+     * window, so that anything holding the old grid sees it has changed. The
+     * player, monsters, Fuel, Health and Car are moved so they stay on the
+     * same tiles of the world. Monsters that end up outside the window are
+     * dropped, while the Fuel, Health and Car are kept even outside it, so
+     * they are there when the player comes back to them.
+     * @param newX The X position in the world of the new window's top left tile
+     * @param newY The Y position in the world of the new window's top left tile
+     */
+    private void moveWindow(int newX, int newY) {
+        long start = GameMetrics.now();
+        tiles.storeTo(world, worldX, worldY);
+        int dx = worldX - newX;
+        int dy = worldY - newY;
+        worldX = newX;
+        worldY = newY;
+        // Both (roadX, carY) and (carX, roadY) are set to the Car, so that it
+        // can still be found once it is outside the window.
+        if (isCar(roadX, carY)) {
+            carX = roadX;
+            roadY = carY;
+        } else {
+            roadX = carX;
+            carY = roadY;
+        }
+        tiles = new TileGrid(gridWidth, gridHeight);
+        tiles.loadFrom(world, worldX, worldY);
+
+        player.setPosition(player.getX() + dx, player.getY() + dy);
+        for (int i = monsters.size() - 1; i >= 0; i--) {
+            int x = monsters.getX(i) + dx;
+            int y = monsters.getY(i) + dy;
+            if (tiles.contains(x, y)) {
+                monsters.move(i, x, y);
+            } else {
+                if (monsters.getKind(i) == MonsterStore.CHASER) {
+                    numChasers--;
+                }
+                monsters.remove(i);
+            }
+        }
+        if (fuel != null) {
+            fuel.setPosition(fuel.getX() + dx, fuel.getY() + dy);
+        }
+        if (health != null) {
+            health.setPosition(health.getX() + dx, health.getY() + dy);
+        }
+        carX += dx;
+        roadX += dx;
+        carY += dy;
+        roadY += dy;
+        GameMetrics.MOVE_WINDOW.since(start);
+    }
+
+    /**
+     * Keeps a position of the window between 0 and the largest it can be.
+     * @param position The position wanted
+     * @param max The largest position
+     * @return the position, moved inside the range if needed
+     */
+    private static int clamp(int position, int max) {
+        return Math.max(0, Math.min(position, max));
     }
 
     /**
@@ -581,37 +995,77 @@ public class GameEngine {
      * position values to the tile that contains the Car.
      */
     private void placePlayer() {
-        if (tiles[roadX][carY] == TileType.CAR) {
-            player.setPosition(roadX, carY - 1);
+        if (isCar(roadX, carY)) {
+            player.setPosition(roadX, carY > 0 ? carY - 1 : carY + 1);
         } else {
-            player.setPosition(carX + 1, roadY);
+            player.setPosition(carX < gridWidth - 1 ? carX + 1 : carX - 1, roadY);
         }
     }
 
+    /**
+     * Handles a key press by moving the player if it was one of the arrow keys
+     * and then performing a turn. Any other key performs a turn without moving
+     * the player.
+     *
+     * @param keyCode The key code of the key that was pressed
+     */
+    public void handleKey(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_LEFT:
+                movePlayerLeft();
+                break;
+            case KeyEvent.VK_RIGHT:
+                movePlayerRight();
+                break;
+            case KeyEvent.VK_UP:
+                movePlayerUp();
+                break;
+            case KeyEvent.VK_DOWN:
+                movePlayerDown();
+                break;
+        }
+        doTurn();
+    }
+
     /**
      * Performs a single turn of the game when the user presses a key on the
-     * keyboard. This method moves any monsters then checks if the player is
+     * keyboard. In a streaming world the window is first moved along if the
+     * player is near its edge. This method works out the path to the player
+     * for monsters to follow, moves any monsters then checks if the player is
      * dead, exiting the game or resetting it. It checks if the player has
      * collected the fuel and returned to the Car to win the level and calls the
      * newLevel() method if it does. It also checks if the player has landed on
-     * a nest tile. If it has, then a chaser is spawned. The method checks if
-     * the health has been collected as well. Finally it requests the GUI to redraw the
-     * game level by passing it the tiles, player, monsters and fuel for the
-     * current level.
+     * a nest tile. If it has, then a chaser is spawned on an open tile next to
+     * the player and the nest turns to dirt. The method checks if
+     * the health has been collected as well. Finally it passes the GUI a
+     * snapshot of the tiles, player, monsters and fuel for the current level
+     * to be drawn. The time taken by the turn and its parts is recorded in
+     * GameMetrics when metrics are enabled.
      */
     public void doTurn() {
+        long turnStart = GameMetrics.now();
+        long turnBytes = GameMetrics.allocatedBytes();
+        followPlayer();
+        if (turnNumber % 5 == 0 || turnNumber % 2 == 0) {
+            pathToPlayer.update(tiles, player.getX(), player.getY());
+        }
         if (turnNumber % 5 == 0) {
+            long start = GameMetrics.now();
             moveSeekers();
+            GameMetrics.MOVE_SEEKERS.since(start);
         }
 
         if (turnNumber % 2 == 0) {
+            long start = GameMetrics.now();
             moveChasers();
+            GameMetrics.MOVE_CHASERS.since(start);
         }
 
 //        if (player.getHealth() < 1) {
 //            System.exit(0);
 //        }
 
+        long pickupStart = GameMetrics.now();
         int playerX = player.getX();
         int playerY = player.getY();
         if (!fuelCollected) {
@@ -620,27 +1074,24 @@ public class GameEngine {
             if (playerX == fuelX && playerY == fuelY) {
                 fuelCollected = true;
                 fuel = null;
+                prepareNextLevel();
             }
         }
-        if (tiles[roadX][carY] == TileType.CAR) {
+        if (isCar(roadX, carY)) {
             if (fuelCollected && (playerX == roadX && playerY == carY)) {
                 newLevel();
             }
         }
-        if (tiles[carX][roadY] == TileType.CAR) {
+        if (isCar(carX, roadY)) {
             if (fuelCollected && (playerX == carX && playerY == roadY)) {
                 newLevel();
             }
         }
 
-        if (tiles[playerX][playerY] == TileType.NEST) {
-            for (int i = 0; i < chasers.length; i++) {
-                if (chasers[i] == null) {
-                    chasers[i] = new Chaser(playerX + 1, playerY + 1);
-                    numChasers++;
-                    break;
-                }
-            }
+        if (tiles.get(playerX, playerY) == TileType.NEST) {
+            spawnChaser(playerX, playerY);
+            numChasers++;
+            tiles.set(playerX, playerY, TileType.DIRT);
         }
 
         if (!healthCollected) {
@@ -652,49 +1103,60 @@ public class GameEngine {
                 player.changeHealth(10);
             }
         }
+        GameMetrics.PICKUPS.since(pickupStart);
 
-        gui.updateDisplay(tiles, player, seekers, chasers, fuel, health);
+        publishFrame();
         turnNumber++;
+        GameMetrics.turnFinished(turnStart, turnBytes, monsters.size(), numChasers);
     }
 
     /**
      * Starts a game. This method generates a level, finds spawn positions in
      * the level, spawns monsters, fuel and the player and then requests the GUI
      * to update the level on screen using the information on tiles, player,
-     * monsters and fuel.
+     * monsters and fuel. In a streaming world the first level is laid out in
+     * a window in the middle of the world.
      */
     public void startGame() {
+        if (world != null) {
+            worldX = (world.getWidth() - gridWidth) / 2;
+            worldY = (world.getHeight() - gridHeight) / 2;
+            layout.setTerrain(world, worldX, worldY);
+        }
         tiles = generateLevel();
-        spawns = getSpawns();
-        seekers = spawnSeekers();
-        chasers = new Chaser[50];
+        getSpawns();
+        monsters.clear();
+        numChasers = 0;
+        spawnSeekers();
         player = spawnPlayer();
         fuel = spawnFuel();
         health = spawnHealth();
-        gui.updateDisplay(tiles, player, seekers, chasers, fuel, health);
+        publishFrame();
     }
 
-    public static void youWin(Graphics g) {
-        try {
-            Graphics2D g2 = (Graphics2D) g;
-            Image youWin = ImageIO.read(new File("assets/you-win.png"));
-            if (cleared == 5) {
-                g2.drawImage(youWin, 0, 0, 816,615,null);
-            }
-        } catch (IOException e) {
-            System.out.println(e);
-        }
+    /**
+     * Fills the back snapshot of the FrameBuffer with the current state of the
+     * game, publishes it and tells the display. The snapshot does not share
+     * anything the engine will change, so it can be drawn on another thread
+     * while the engine runs the next turn. The level's tiles keep a list of
+     * the tiles changed, so the snapshot only copies those and publishing
+     * allocates nothing once each snapshot holds a copy of the level. A Fuel
+     * or Health left outside the window of a streaming world is not shown.
+     */
+    private void publishFrame() {
+        tiles.trackChanges();
+        frames.getBackBuffer().capture(tiles, cleared, player, monsters, inWindow(fuel), inWindow(health), isWon());
+        frames.publish();
+        gui.updateDisplay(frames);
     }
 
-    public static void gameOver(Graphics g) {
-        try {
-            Graphics2D g2 = (Graphics2D) g;
-            Image gameOver = ImageIO.read(new File("assets/game-over.png"));
-            if (player.getHealth() < 1) {
-                g2.drawImage(gameOver, 0, 0, 816,615,null);
-            }
-        } catch (IOException e) {
-            System.out.println(e);
-        }
+    /**
+     * Returns an entity if it is inside the level.
+     * @param entity The entity, or null
+     * @return the entity, or null if it is null or outside the window of a
+     * streaming world
+     */
+    private <T extends Entity> T inWindow(T entity) {
+        return entity != null && tiles.contains(entity.getX(), entity.getY()) ? entity : null;
     }
 }
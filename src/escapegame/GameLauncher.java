@@ -1,6 +1,9 @@
 package escapegame;
 
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
 import java.awt.image.ImageObserver;
 import java.text.AttributedCharacterIterator;
 
@@ -11,23 +14,104 @@ import java.text.AttributedCharacterIterator;
  */
 public class GameLauncher {
 
+    /**
+     * Starts the game. The width and height of the levels, measured in tiles,
+     * can optionally be given as the first two arguments. A seed for the
+     * engine's random number generator can be given as the third argument, and
+     * a file to record the keys pressed to as the fourth. A recorded game can
+     * be played again with SessionReplay. If the program is started with
+     * -Descapegame.metrics=true the game's metrics can be read through JMX and
+     * are printed when it exits. Starting it with -Descapegame.fps=N draws the
+     * game actively at up to N frames per second, or at the screen's refresh
+     * rate if N is 0, and prints the frame times when it exits. Starting it
+     * with -Descapegame.world=N plays in a streaming world of N x N tiles,
+     * with the level size giving the size of the window onto it. A game in a
+     * streaming world cannot be replayed, so no input log is recorded.
+     * @param args optional level width and height, seed and input log file
+     */
     public static void main(String[] args) {
+        final int width = args.length >= 2 ? Integer.parseInt(args[0]) : GameEngine.GRID_WIDTH;
+        final int height = args.length >= 2 ? Integer.parseInt(args[1]) : GameEngine.GRID_HEIGHT;
+        final long seed = args.length >= 3 ? Long.parseLong(args[2]) : new Random().nextLong();
+        final File log = args.length >= 4 ? new File(args[3]) : null;
+        final Integer fps = Integer.getInteger("escapegame.fps");
+        final Integer worldSize = Integer.getInteger("escapegame.world");
+        GameEngine.checkSize(width, height);
+        final ChunkedWorld world;
+        if (worldSize != null) {
+            world = createWorld(worldSize, width, height, seed);
+            if (world == null) {
+                return;
+            }
+        } else {
+            world = null;
+        }
+        if (GameMetrics.ENABLED) {
+            GameMetrics.register();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(GameMetrics.get().getReport())));
+        }
         EventQueue.invokeLater(new Runnable() {
 
             /**
              * The run method starts the game in a separate thread. It creates
-             * the GUI, the engine and the input handler classes and connects
-             * those that call other objects.
+             * the GUI, the engine, the game loop and the input handler classes
+             * and connects those that call other objects. The GUI is switched
+             * to active rendering first if a frame rate was given. If a log file was
+             * given the game loop records the keys to it. The game is then
+             * started, and its turns run, by the game loop on its own thread,
+             * so that generating the first level does not hold up the window.
              */
             @Override
             public void run() {
                 GameGUI gui = new GameGUI();
                 gui.setVisible(true);
-                GameEngine eng = new GameEngine(gui);
-                InputHandler i = new InputHandler(eng);
+                if (fps != null) {
+                    ActiveRenderer renderer = gui.startActiveRendering(fps);
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(renderer.getReport())));
+                }
+                GameEngine eng = new GameEngine(gui, world, width, height, seed);
+                GameLoop loop = new GameLoop(eng);
+                if (log != null && world != null) {
+                    System.out.println("Games in a streaming world cannot be replayed, so no input log is recorded");
+                } else if (log != null) {
+                    try {
+                        loop.setRecorder(new InputRecorder(log, eng));
+                    } catch (IOException e) {
+                        System.out.println("Could not create the input log: " + e.getMessage());
+                    }
+                }
+                InputHandler i = new InputHandler(loop);
                 gui.registerKeyHandler(i);
-                eng.startGame();
+                loop.start();
             }
         });
     }
+
+    /**
+     * Creates a streaming world for the game, with its changed chunks kept in
+     * a temporary file that is deleted when the program exits. The world keeps
+     * enough chunks in memory to cover four windows, so the chunks around the
+     * player are not dropped as the window moves back and forth.
+     * @param size The width and height of the world in tiles
+     * @param width The width of the window onto the world in tiles
+     * @param height The height of the window onto the world in tiles
+     * @param seed The seed the world's tiles are generated from
+     * @return the world, or null if it is smaller than the window or its file
+     * could not be created
+     */
+    private static ChunkedWorld createWorld(int size, int width, int height, long seed) {
+        if (size < width || size < height) {
+            System.out.println("A world of " + size + "x" + size + " tiles is too small for a window of " + width + "x" + height);
+            return null;
+        }
+        int across = (Math.max(width, height) + LevelGenerator.CHUNK_SIZE - 1) / LevelGenerator.CHUNK_SIZE + 1;
+        try {
+            File file = File.createTempFile("world", ".chunks");
+            file.deleteOnExit();
+            return new ChunkedWorld(size, size, seed, Math.max(9, 4 * across * across), 1, file);
+        } catch (IOException e) {
+            System.out.println("Could not create the world's file: " + e.getMessage());
+            return null;
+        }
+    }
 }
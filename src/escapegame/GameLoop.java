@@ -0,0 +1,187 @@
+package escapegame;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The GameLoop class runs a GameEngine on its own thread, away from the Swing
+ * event dispatch thread. The loop starts the engine's game on that thread, so
+ * generating even a very large first level never freezes the window. Key
+ * presses are put on a lock-free queue by the InputHandler and taken off by
+ * the loop at a fixed number of ticks per second, one key press per tick,
+ * with each key press running one turn. A burst of key presses is therefore
+ * played out at the tick rate rather than all at once, a slow turn only
+ * delays later turns, and neither stops the GUI from handling input or
+ * painting. The engine hands the GUI a FrameSnapshot at the end of each turn.
+ */
+public class GameLoop implements Runnable {
+
+    /**
+     * The number of times per second that the loop checks for input, which is
+     * also the most turns it runs per second.
+     */
+    public static final int TICKS_PER_SECOND = 60;
+
+    /**
+     * The engine run by this loop. It is only used from the loop's thread once
+     * the loop has started.
+     */
+    private final GameEngine engine;
+
+    /**
+     * Key codes waiting to be handled by the engine.
+     */
+    private final ConcurrentLinkedQueue<Integer> input = new ConcurrentLinkedQueue<Integer>();
+
+    /**
+     * Set to false to make the loop finish after its current tick.
+     */
+    private volatile boolean running;
+
+    /**
+     * Records every key code passed to the engine, or null if the game is not
+     * being recorded. Only used from the loop's thread once the loop has
+     * started.
+     */
+    private InputRecorder recorder;
+
+    /**
+     * The thread running the loop, or null if it has not been started.
+     */
+    private Thread thread;
+
+    /**
+     * Creates a loop for an engine. The loop does nothing until start is
+     * called, which starts the engine's game.
+     * @param engine The engine whose game the loop starts and that key presses
+     * will be passed to
+     */
+    public GameLoop(GameEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Has the loop record every key code it passes to the engine, in the order
+     * they are handled. Must be called before the loop is started.
+     * @param recorder The recorder to write key codes to
+     */
+    public void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Starts the loop on a new daemon thread, which starts the game and then
+     * handles key presses.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the loop, waits for its thread to finish and closes the recorder
+     * if there is one.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void stop() throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = thread;
+            thread = null;
+        }
+        if (t != null) {
+            LockSupport.unpark(t);
+            t.join();
+        }
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                System.out.println("Could not close the input log: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Queues a key press to be handled on the next tick. This can be called
+     * from any thread and never blocks.
+     * @param keyCode The key code of the key that was pressed
+     */
+    public void submit(int keyCode) {
+        input.offer(keyCode);
+    }
+
+    /**
+     * Prints an error thrown by the engine and stops the loop after the
+     * current tick.
+     * @param e The exception thrown by the engine
+     */
+    private void fail(RuntimeException e) {
+        System.out.println("The game stopped after an error: " + e);
+        e.printStackTrace(System.out);
+        running = false;
+    }
+
+    /**
+     * Writes a key code to the recorder if there is one. If the log cannot be
+     * written the recording is stopped and the game carries on.
+     * @param keyCode The key code about to be passed to the engine
+     */
+    private void record(int keyCode) {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.record(keyCode);
+        } catch (IOException e) {
+            System.out.println("Could not write the input log, recording stopped: " + e.getMessage());
+            recorder = null;
+        }
+    }
+
+    /**
+     * Starts the engine's game, then runs ticks until the loop is stopped.
+     * Each tick passes the oldest queued key press, if there is one, to the
+     * engine, then waits until the next tick is due. If a tick runs late the
+     * schedule restarts from the current time rather than running several
+     * ticks back to back. If the game or a turn throws an exception the error
+     * is printed and the loop stops, rather than the thread dying without a
+     * word.
+     */
+    @Override
+    public void run() {
+        try {
+            engine.startGame();
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+        long period = TimeUnit.SECONDS.toNanos(1) / TICKS_PER_SECOND;
+        long nextTick = System.nanoTime();
+        while (running) {
+            Integer keyCode = input.poll();
+            if (keyCode != null) {
+                record(keyCode);
+                try {
+                    engine.handleKey(keyCode);
+                } catch (RuntimeException e) {
+                    fail(e);
+                }
+            }
+            nextTick += period;
+            long wait = nextTick - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            } else {
+                nextTick = System.nanoTime();
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package escapegame;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The GameMetrics class records how long turns and their parts take, how
+ * much memory a turn allocates, how many monsters there are and how long the
+ * canvas takes to paint. Metrics are turned on by starting the program with
+ * -Descapegame.metrics=true. When they are off, ENABLED is a constant false,
+ * so the JIT compiler removes the checks around every measurement and they
+ * cost nothing.
+ *
+ * The values can be read through JMX once register has been called, or
+ * printed with getReport. They are shared by every engine in the program.
+ */
+public final class GameMetrics implements GameMetricsMBean {
+
+    /**
+     * Whether metrics are recorded.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("escapegame.metrics");
+
+    /**
+     * The histograms of the timed parts of the game, in nanoseconds, and of
+     * the bytes allocated per turn.
+     */
+    public static final Histogram TURN = new Histogram("turn");
+    public static final Histogram MOVE_SEEKERS = new Histogram("moveSeekers");
+    public static final Histogram MOVE_CHASERS = new Histogram("moveChasers");
+    public static final Histogram PICKUPS = new Histogram("pickups");
+    public static final Histogram NEW_LEVEL = new Histogram("newLevel");
+    public static final Histogram MOVE_WINDOW = new Histogram("moveWindow");
+    public static final Histogram PAINT = new Histogram("paint");
+    public static final Histogram TURN_BYTES = new Histogram("turn bytes");
+
+    /**
+     * The number of monsters and chasers after the last turn recorded.
+     */
+    private static volatile int monsters;
+    private static volatile int chasers;
+
+    /**
+     * Used to read the bytes allocated by a thread, or null if the JVM cannot.
+     */
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    /**
+     * The single instance registered with JMX.
+     */
+    private static final GameMetrics INSTANCE = new GameMetrics();
+
+    private GameMetrics() {
+    }
+
+    /**
+     * Returns the current time to pass to Histogram.since, or 0 if metrics are
+     * off.
+     * @return the current value of System.nanoTime, or 0
+     */
+    public static long now() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far, or
+     * 0 if metrics are off or the JVM cannot count them.
+     * @return the bytes allocated by this thread
+     */
+    public static long allocatedBytes() {
+        if (!ENABLED || THREADS == null) {
+            return 0;
+        }
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Records the end of a turn.
+     * @param start The time the turn started, from now
+     * @param startBytes The bytes allocated when the turn started, from
+     * allocatedBytes
+     * @param monsterCount The number of monsters after the turn
+     * @param chaserCount The number of chasers after the turn
+     */
+    public static void turnFinished(long start, long startBytes, int monsterCount, int chaserCount) {
+        if (ENABLED) {
+            TURN.since(start);
+            if (THREADS != null) {
+                TURN_BYTES.record(allocatedBytes() - startBytes);
+            }
+            monsters = monsterCount;
+            chasers = chaserCount;
+        }
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server so they can be read
+     * through JMX. Does nothing if metrics are off.
+     */
+    public static void register() {
+        if (!ENABLED) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName("escapegame:type=GameMetrics"));
+        } catch (Exception e) {
+            System.out.println("Could not register the game metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the single instance, which holds the JMX view of the metrics.
+     * @return the metrics
+     */
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    @Override
+    public long getTurns() {
+        return TURN.getCount();
+    }
+
+    @Override
+    public double getTurnMeanMicros() {
+        return TURN.getMean() / 1000;
+    }
+
+    @Override
+    public double getTurnP99Micros() {
+        return TURN.getPercentile(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getPaintP99Micros() {
+        return PAINT.getPercentile(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getBytesPerTurn() {
+        return TURN_BYTES.getMean();
+    }
+
+    @Override
+    public int getMonsters() {
+        return monsters;
+    }
+
+    @Override
+    public int getChasers() {
+        return chasers;
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        for (Histogram h : new Histogram[]{TURN, MOVE_SEEKERS, MOVE_CHASERS, PICKUPS, NEW_LEVEL, MOVE_WINDOW, PAINT}) {
+            report.append(h.describe(1000, "us")).append('\n');
+        }
+        report.append(TURN_BYTES.describe(1, "B")).append('\n');
+        report.append("monsters ").append(monsters).append(", chasers ").append(chasers);
+        return report.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (Histogram h : new Histogram[]{TURN, MOVE_SEEKERS, MOVE_CHASERS, PICKUPS, NEW_LEVEL, MOVE_WINDOW, PAINT, TURN_BYTES}) {
+            h.reset();
+        }
+    }
+
+    /**
+     * Finds the bean that counts the bytes allocated by each thread.
+     * @return the bean, or null if this JVM does not support it
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported()) {
+                return counter;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,53 @@
+package escapegame;
+
+/**
+ * The values of GameMetrics that can be read through JMX, for example with
+ * JConsole, under the name escapegame:type=GameMetrics.
+ */
+public interface GameMetricsMBean {
+
+    /**
+     * @return the number of turns recorded
+     */
+    long getTurns();
+
+    /**
+     * @return the average time of a turn in microseconds
+     */
+    double getTurnMeanMicros();
+
+    /**
+     * @return the 99th percentile time of a turn in microseconds
+     */
+    double getTurnP99Micros();
+
+    /**
+     * @return the 99th percentile time to paint the canvas in microseconds
+     */
+    double getPaintP99Micros();
+
+    /**
+     * @return the average number of bytes allocated by a turn
+     */
+    double getBytesPerTurn();
+
+    /**
+     * @return the number of monsters after the last turn recorded
+     */
+    int getMonsters();
+
+    /**
+     * @return the number of chasers after the last turn recorded
+     */
+    int getChasers();
+
+    /**
+     * @return a report of every histogram, one per line
+     */
+    String getReport();
+
+    /**
+     * Empties every histogram.
+     */
+    void reset();
+}
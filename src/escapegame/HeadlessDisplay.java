@@ -0,0 +1,31 @@
+package escapegame;
+
+/**
+ * A GameDisplay that draws nothing. It is used to run a GameEngine without a
+ * GameGUI, so that games can be simulated on machines without a screen and
+ * many engines can run in the same program. The number of updates received is
+ * counted so that a caller can check the engine is still producing turns.
+ */
+public class HeadlessDisplay implements GameDisplay {
+
+    /**
+     * The number of times the engine has called updateDisplay on this object.
+     */
+    private long updates = 0;
+
+    /**
+     * Ignores the new snapshot apart from counting the update.
+     */
+    @Override
+    public void updateDisplay(FrameBuffer frames) {
+        updates++;
+    }
+
+    /**
+     * Returns the number of updates received from the engine.
+     * @return the number of times updateDisplay has been called.
+     */
+    public long getUpdates() {
+        return updates;
+    }
+}
@@ -0,0 +1,136 @@
+package escapegame;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Histogram counts recorded values, such as the nanoseconds a turn took or
+ * the bytes it allocated, in buckets that double in size: bucket 0 holds 0,
+ * bucket 1 holds 1, bucket 2 holds 2 and 3, bucket 3 holds 4 to 7 and so on.
+ * Recording a value is a few atomic additions and never allocates, so it can
+ * be done every turn from several threads at once. Percentiles are reported as
+ * the top of the bucket they fall in, so they are accurate to within a factor
+ * of two.
+ */
+public class Histogram {
+
+    /**
+     * The number of values in each bucket, then the count, total and largest
+     * value recorded.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+    private final AtomicLongArray totals = new AtomicLongArray(3);
+    private static final int COUNT = 0;
+    private static final int SUM = 1;
+    private static final int MAX = 2;
+
+    /**
+     * The name of the values, used in reports.
+     */
+    private final String name;
+
+    /**
+     * Creates an empty histogram.
+     * @param name The name of the values, used in reports
+     */
+    public Histogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     * @param value The value to record
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(v));
+        totals.incrementAndGet(COUNT);
+        totals.addAndGet(SUM, v);
+        long max;
+        while (v > (max = totals.get(MAX)) && !totals.compareAndSet(MAX, max, v)) {
+            // another thread changed the largest value, so check again
+        }
+    }
+
+    /**
+     * Records the nanoseconds since a time returned by GameMetrics.now, if
+     * metrics are enabled.
+     * @param start The time the measured work started
+     */
+    public void since(long start) {
+        if (GameMetrics.ENABLED) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the number of values recorded.
+     * @return the count of values
+     */
+    public long getCount() {
+        return totals.get(COUNT);
+    }
+
+    /**
+     * Returns the average of the values recorded.
+     * @return the mean, or 0 if nothing has been recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) totals.get(SUM) / count;
+    }
+
+    /**
+     * Returns the largest value recorded.
+     * @return the largest value
+     */
+    public long getMax() {
+        return totals.get(MAX);
+    }
+
+    /**
+     * Returns the value that the given fraction of recorded values are at or
+     * below, rounded up to the top of its bucket.
+     * @param fraction The fraction, such as 0.99 for the 99th percentile
+     * @return the percentile, or 0 if nothing has been recorded
+     */
+    public long getPercentile(double fraction) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < 64; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return i == 0 ? 0 : Math.min(getMax(), (1L << i) - 1);
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Empties the histogram.
+     */
+    public void reset() {
+        for (int i = 0; i < 64; i++) {
+            buckets.set(i, 0);
+        }
+        for (int i = 0; i < 3; i++) {
+            totals.set(i, 0);
+        }
+    }
+
+    /**
+     * Describes the histogram in one line, dividing every value by a scale
+     * such as 1000 to show nanoseconds as microseconds.
+     * @param scale The number to divide values by
+     * @param unit The unit of the scaled values
+     * @return the name, count, mean, percentiles and largest value
+     */
+    public String describe(double scale, String unit) {
+        return String.format("%-14s count %9d  mean %10.1f  p50 %10.1f  p99 %10.1f  max %10.1f %s",
+                name, getCount(), getMean() / scale, getPercentile(0.5) / scale,
+                getPercentile(0.99) / scale, getMax() / scale, unit);
+    }
+}
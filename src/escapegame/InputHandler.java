@@ -6,21 +6,21 @@ import java.awt.event.KeyListener;
 /**
  * This class handles keyboard events (key presses) captured by a GameGUI object
  * that are passed to an instance of this class. The class is responsible for
- * calling methods in the GameEngine class that will update tiles, players and
- * aliens for the various key presses that are handled.
+ * passing key presses to a GameLoop, which has the GameEngine update tiles,
+ * players and monsters on its own thread.
  */
 public class InputHandler implements KeyListener {
 
-    GameEngine engine;
+    GameLoop loop;
 
     /**
      * Constructor that forms a connection between a InputHandler object and
-     * a GameEngine object. The GameEngine object registered here is the one that will
-     * have methods called to change player and alien positions etc.
-     * @param eng The GameEngine object that this InputHandler is linked to
+     * a GameLoop object. The GameLoop object registered here is the one that
+     * key presses will be queued on.
+     * @param loop The GameLoop object that this InputHandler is linked to
      */
-    public InputHandler(GameEngine eng) {
-        engine = eng;
+    public InputHandler(GameLoop loop) {
+        this.loop = loop;
     }
 
     /**
@@ -33,29 +33,15 @@ public class InputHandler implements KeyListener {
     }
 
     /**
-     * Method to handle key presses captured by the GameGUI. The method currently
-     * calls the game engine to do a game turn for any key press, but if the up,
-     * down, left or right arrow keys are pressed it also calls methods in the
-     * engine to update the game by moving the player (and monsters if implemented)
+     * Method to handle key presses captured by the GameGUI. The key code is
+     * queued on the game loop, which will have the engine do a game turn for
+     * it. The method returns straight away so that the GUI stays responsive
+     * however long the turn takes.
      * @param e A KeyEvent object generated when a keyboard key is pressed
      */
     @Override
     public void keyPressed(KeyEvent e) {
-        switch (e.getKeyCode()) {
-            case KeyEvent.VK_LEFT:
-                engine.movePlayerLeft();
-                break;
-            case KeyEvent.VK_RIGHT:
-                engine.movePlayerRight();
-                break;
-            case KeyEvent.VK_UP:
-                engine.movePlayerUp();
-                break;
-            case KeyEvent.VK_DOWN:
-                engine.movePlayerDown();
-                break;
-        }
-        engine.doTurn();
+        loop.submit(e.getKeyCode());
     }
 
     /**
@@ -0,0 +1,17 @@
+package escapegame;
+
+/**
+ * An InputPolicy chooses the keys pressed in a simulated game, in place of a
+ * person at the keyboard. A BatchRunner asks it for a key before every turn.
+ * A policy may keep state between turns, so each game is given its own.
+ */
+public interface InputPolicy {
+
+    /**
+     * Chooses the next key to pass to the engine.
+     * @param engine The engine running the game, which can be queried for the
+     * position of the player, fuel and car
+     * @return the key code of the key to press
+     */
+    int nextKey(GameEngine engine);
+}
@@ -0,0 +1,84 @@
+package escapegame;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * The InputRecorder class writes the key codes passed to a GameEngine to a
+ * small binary file, so that the game can be played again exactly by a
+ * SessionReplay. The file starts with a header holding the seed and level size
+ * of the engine, followed by one entry per key press. Each key code is written
+ * seven bits at a time with the top bit of each byte set if more bytes follow,
+ * so the arrow keys take a single byte each.
+ */
+public class InputRecorder {
+
+    /**
+     * The first four bytes of every input log, "EGI1", used to check that a
+     * file really is an input log of this version.
+     */
+    public static final int MAGIC = 0x45474931;
+
+    /**
+     * The stream the log is written to.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * The number of key codes recorded so far.
+     */
+    private long recorded = 0;
+
+    /**
+     * Creates a log file for a game and writes its header. Any existing file
+     * is replaced.
+     * @param file The file to write the log to
+     * @param engine The engine whose keys will be recorded, which gives the
+     * seed and level size for the header
+     * @throws IOException if the file cannot be created or written
+     */
+    public InputRecorder(File file, GameEngine engine) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        out.writeInt(MAGIC);
+        out.writeLong(engine.getSeed());
+        out.writeInt(engine.getGridWidth());
+        out.writeInt(engine.getGridHeight());
+        out.flush();
+    }
+
+    /**
+     * Adds a key code to the log. The log is flushed after every key so that
+     * nothing is lost if the game is closed without calling close.
+     * @param keyCode The key code passed to the engine
+     * @throws IOException if the file cannot be written
+     */
+    public void record(int keyCode) throws IOException {
+        int value = keyCode;
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+        out.flush();
+        recorded++;
+    }
+
+    /**
+     * Returns the number of key codes recorded so far.
+     * @return the number of key codes in the log
+     */
+    public long getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * Flushes and closes the log file.
+     * @throws IOException if the file cannot be written
+     */
+    public void close() throws IOException {
+        out.close();
+    }
+}
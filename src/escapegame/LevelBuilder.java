@@ -0,0 +1,196 @@
+package escapegame;
+
+import escapegame.GameEngine.TileType;
+
+import java.util.Random;
+
+/**
+ * The LevelBuilder class lays out a level: its tiles, the road and Car, and
+ * where the Seekers, Fuel and Health start. GameEngine uses one to lay out
+ * each level it generates, and a second one to build its next level in the
+ * background while the player heads back to the Car. The builder only holds
+ * what a level needs, so building in the background costs one extra level's
+ * tiles and spawn pool rather than a whole second engine.
+ */
+class LevelBuilder {
+
+    /**
+     * The size of the levels built, in tiles.
+     */
+    private final int width;
+    private final int height;
+
+    /**
+     * The random number generator used for background builds, which is
+     * seeded again for every level so that the level only depends on the seed.
+     */
+    private final Random rng = new Random();
+
+    /**
+     * The pool that spawn positions are taken from.
+     */
+    private final SpawnPool spawns;
+
+    /**
+     * The world the terrain of each level is read from, and the position in
+     * it of the level's top left tile, or null if the terrain is generated by
+     * a LevelGenerator.
+     */
+    private TileSource terrain;
+    private int terrainX;
+    private int terrainY;
+
+    /**
+     * The tiles of the level last laid out, and the positions of its Car and
+     * road. If the road runs along a row the Car is at (carX, roadY),
+     * otherwise the road runs along a column and the Car is at (roadX, carY).
+     */
+    TileGrid tiles;
+    int carX;
+    int carY;
+    int roadX;
+    int roadY;
+
+    /**
+     * The tiles the Seekers, Fuel and Health of the last level built start
+     * in, each stored as y * width + x as taken from the spawn pool.
+     */
+    private int[] seekers = new int[0];
+    private int seekerCount;
+    int fuelCell;
+    int healthCell;
+
+    /**
+     * Creates a builder for levels of the given size.
+     * @param width The width of each level in tiles
+     * @param height The height of each level in tiles
+     * @param spawns The spawn pool to take positions from, which must be for
+     * levels of the same size
+     */
+    LevelBuilder(int width, int height, SpawnPool spawns) {
+        this.width = width;
+        this.height = height;
+        this.spawns = spawns;
+    }
+
+    /**
+     * Makes the levels laid out from now on read their terrain from a part of
+     * a larger world rather than generate it, as the window of a streaming
+     * world.
+     * @param terrain The world to read the grass, dirt, nest and wall tiles
+     * from
+     * @param originX The X position in the world of the level's top left tile
+     * @param originY The Y position in the world of the level's top left tile
+     */
+    void setTerrain(TileSource terrain, int originX, int originY) {
+        this.terrain = terrain;
+        this.terrainX = originX;
+        this.terrainY = originY;
+    }
+
+    /**
+     * Lays out the tiles of a new level. The grass, dirt, nest and wall tiles
+     * are filled in by a LevelGenerator from a seed taken from rng, or read
+     * from the world given to setTerrain, then a road is run along a random
+     * row or column with the Car on it.
+     * @param rng The random number generator to make the level's choices with
+     * @return the new tiles
+     */
+    TileGrid layOut(Random rng) {
+        tiles = new TileGrid(width, height);
+        carX = rng.nextInt(width);
+        carY = rng.nextInt(height);
+        roadX = rng.nextInt(width);
+        roadY = rng.nextInt(height);
+        long terrainSeed = rng.nextLong();
+        if (terrain != null) {
+            tiles.loadFrom(terrain, terrainX, terrainY);
+        } else {
+            LevelGenerator.fillTerrain(tiles, terrainSeed);
+        }
+        // 0 represents width, 1 represents height
+        if (rng.nextInt(2) == 0) {
+            for (int i = 0; i < width; i++) {
+                tiles.set(i, roadY, TileType.ROAD);
+            }
+            tiles.set(carX, roadY, TileType.CAR);
+        } else {
+            for (int i = 0; i < height; i++) {
+                tiles.set(roadX, i, TileType.ROAD);
+            }
+            tiles.set(roadX, carY, TileType.CAR);
+        }
+        return tiles;
+    }
+
+    /**
+     * Builds a whole level from a seed: lays out its tiles, then takes the
+     * starting tiles of the Seekers, Fuel and Health from the spawn pool in
+     * that order, in the same way GameEngine.startGame does for the first
+     * level. Like startGame, it leaves two tiles for the Fuel and Health, so
+     * fewer seekers are spawned if the level has too few open tiles. This is
+     * safe to run on another thread as long as nothing else uses the builder
+     * until it has finished.
+     * @param seed The seed for the level's random choices
+     * @param seekerTotal The number of seekers to spawn
+     */
+    void build(long seed, int seekerTotal) {
+        rng.setSeed(seed);
+        layOut(rng);
+        spawns.fill(tiles);
+        seekerTotal = Math.min(seekerTotal, spawns.size() - 2);
+        if (seekers.length < seekerTotal) {
+            seekers = new int[seekerTotal];
+        }
+        seekerCount = seekerTotal;
+        for (int i = 0; i < seekerTotal; i++) {
+            seekers[i] = spawns.take(rng);
+        }
+        fuelCell = spawns.take(rng);
+        healthCell = spawns.take(rng);
+    }
+
+    /**
+     * Returns the number of seekers in the level last built.
+     * @return the number of seekers
+     */
+    int getSeekerCount() {
+        return seekerCount;
+    }
+
+    /**
+     * Returns the X position of a seeker in the level last built.
+     * @param i The index of the seeker
+     * @return the X position of its tile
+     */
+    int getSeekerX(int i) {
+        return spawns.getX(seekers[i]);
+    }
+
+    /**
+     * Returns the Y position of a seeker in the level last built.
+     * @param i The index of the seeker
+     * @return the Y position of its tile
+     */
+    int getSeekerY(int i) {
+        return spawns.getY(seekers[i]);
+    }
+
+    /**
+     * Returns the X position of a tile taken from the spawn pool.
+     * @param cell The tile as stored in the pool
+     * @return the X position
+     */
+    int getX(int cell) {
+        return spawns.getX(cell);
+    }
+
+    /**
+     * Returns the Y position of a tile taken from the spawn pool.
+     * @param cell The tile as stored in the pool
+     * @return the Y position
+     */
+    int getY(int cell) {
+        return spawns.getY(cell);
+    }
+}
@@ -0,0 +1,169 @@
+package escapegame;
+
+import escapegame.GameEngine.TileType;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The LevelGenerator class fills a level with grass, dirt, nest and wall tiles
+ * in the same proportions as the original generator: 5% walls, 5% nests, 40%
+ * dirt and 50% grass. The level is split into square chunks and each chunk
+ * gets its own SplittableRandom, seeded from the level's seed and the chunk's
+ * number. The chunks can therefore be filled on several threads at once and
+ * still give exactly the same level whatever the number of threads. Large
+ * levels are filled on the common ForkJoinPool.
+ */
+public class LevelGenerator {
+
+    /**
+     * The width and height of a chunk in tiles.
+     */
+    public static final int CHUNK_SIZE = 64;
+
+    /**
+     * The number of chunks a task fills itself instead of splitting further.
+     */
+    private static final int CHUNKS_PER_TASK = 4;
+
+    /**
+     * The ordinals of the tiles placed by the generator.
+     */
+    private static final int WALL = TileType.WALL.ordinal();
+    private static final int NEST = TileType.NEST.ordinal();
+    private static final int DIRT = TileType.DIRT.ordinal();
+    private static final int GRASS = TileType.GRASS.ordinal();
+
+    /**
+     * Fills every tile of a level with grass, dirt, nest or wall.
+     * @param tiles The tiles of a new level, which must not be used by
+     * anything else until this returns
+     * @param seed The seed of the level
+     */
+    public static void fillTerrain(TileGrid tiles, long seed) {
+        int columns = (tiles.getWidth() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int rows = (tiles.getHeight() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Chunks all = new Chunks(tiles, seed, columns, 0, columns * rows);
+        if (columns * rows <= CHUNKS_PER_TASK) {
+            all.compute();
+        } else {
+            all.invoke();
+        }
+    }
+
+    /**
+     * Fills one chunk of a level. The tiles are filled in row order from the
+     * chunk's own random number generator.
+     * @param tiles The tiles of the level
+     * @param seed The seed of the level
+     * @param columns The number of chunks across the level
+     * @param chunk The number of the chunk, counting across then down
+     */
+    static void fillChunk(TileGrid tiles, long seed, int columns, int chunk) {
+        SplittableRandom rng = chunkRandom(seed, chunk);
+        int startX = (chunk % columns) * CHUNK_SIZE;
+        int startY = (chunk / columns) * CHUNK_SIZE;
+        int endX = Math.min(startX + CHUNK_SIZE, tiles.getWidth());
+        int endY = Math.min(startY + CHUNK_SIZE, tiles.getHeight());
+        for (int y = startY; y < endY; y++) {
+            int index = y * tiles.getWidth() + startX;
+            for (int x = startX; x < endX; x++) {
+                tiles.setOrdinal(index++, nextTile(rng));
+            }
+        }
+    }
+
+    /**
+     * Creates the random number generator for one chunk of a level.
+     * @param seed The seed of the level
+     * @param chunk The number of the chunk
+     * @return a generator that gives the same values for the same seed and
+     * chunk
+     */
+    static SplittableRandom chunkRandom(long seed, long chunk) {
+        return new SplittableRandom(mix(seed + (chunk + 1) * 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * Picks the type of the next tile of a chunk.
+     * @param rng The chunk's random number generator
+     * @return the ordinal of a wall, nest, dirt or grass tile
+     */
+    static int nextTile(SplittableRandom rng) {
+        int num = rng.nextInt(100);
+        if (num < 5) {
+            return WALL;
+        } else if (num < 10) {
+            return NEST;
+        } else if (num < 50) {
+            return DIRT;
+        } else {
+            return GRASS;
+        }
+    }
+
+    /**
+     * Scrambles the bits of a number so that seeds that are close together
+     * give unrelated chunk seeds.
+     * @param z The number to scramble
+     * @return the scrambled number
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A task that fills a range of chunks, splitting itself in half until each
+     * part is small.
+     */
+    private static class Chunks extends RecursiveAction {
+
+        /**
+         * Tasks are never serialized, but ForkJoinTask is Serializable.
+         */
+        private static final long serialVersionUID = 1L;
+
+        private final TileGrid tiles;
+        private final long seed;
+        private final int columns;
+
+        /**
+         * The first chunk and one past the last chunk to fill.
+         */
+        private final int from;
+        private final int to;
+
+        /**
+         * Creates a task for the chunks from (inclusive) to to (exclusive).
+         * @param tiles The tiles of the level
+         * @param seed The seed of the level
+         * @param columns The number of chunks across the level
+         * @param from The first chunk
+         * @param to One past the last chunk
+         */
+        Chunks(TileGrid tiles, long seed, int columns, int from, int to) {
+            this.tiles = tiles;
+            this.seed = seed;
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Fills the chunks, or splits them between two smaller tasks.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNKS_PER_TASK) {
+                for (int chunk = from; chunk < to; chunk++) {
+                    fillChunk(tiles, seed, columns, chunk);
+                }
+                return;
+            }
+            int middle = from + (to - from) / 2;
+            invokeAll(new Chunks(tiles, seed, columns, from, middle), new Chunks(tiles, seed, columns, middle, to));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package escapegame;
+
+import java.util.Arrays;
+
+/**
+ * The MonsterStore class holds the position and kind of every monster in a
+ * level in parallel arrays, rather than as one object per monster. Monsters are
+ * kept packed at the start of the arrays, so the live monsters are always the
+ * indexes from 0 to size() - 1 and no empty slots need to be skipped. When a
+ * monster is removed, the last monster is moved into its slot. The arrays grow
+ * as needed, so there is no limit on the number of monsters.
+ *
+ * The store also keeps an OccupancyIndex for each kind of monster, so that it
+ * can say in constant time whether a tile is taken by a monster of that kind.
+ */
+public class MonsterStore {
+
+    /**
+     * The kinds of monster that can be stored. These are the values held in
+     * the kind array.
+     */
+    public static final byte SEEKER = 0;
+    public static final byte CHASER = 1;
+
+    /**
+     * The X and Y position and kind of each monster, indexed by monster.
+     */
+    private int[] x;
+    private int[] y;
+    private byte[] kind;
+
+    /**
+     * The number of monsters in the store.
+     */
+    private int size;
+
+    /**
+     * The tiles taken by each kind of monster, indexed by kind.
+     */
+    private final OccupancyIndex[] occupancy;
+
+    /**
+     * Creates an empty store for a level of the given size.
+     * @param width The width of the level in tiles
+     * @param height The height of the level in tiles
+     */
+    public MonsterStore(int width, int height) {
+        x = new int[16];
+        y = new int[16];
+        kind = new byte[16];
+        occupancy = new OccupancyIndex[] {new OccupancyIndex(width, height), new OccupancyIndex(width, height)};
+    }
+
+    /**
+     * Returns the number of monsters in the store.
+     * @return the number of monsters
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the X position of a monster.
+     * @param i The index of the monster
+     * @return The X position of the monster
+     */
+    public int getX(int i) {
+        return x[i];
+    }
+
+    /**
+     * Returns the Y position of a monster.
+     * @param i The index of the monster
+     * @return The Y position of the monster
+     */
+    public int getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * Returns the kind of a monster.
+     * @param i The index of the monster
+     * @return SEEKER or CHASER
+     */
+    public byte getKind(int i) {
+        return kind[i];
+    }
+
+    /**
+     * Checks whether a tile is taken by a monster of the given kind.
+     * @param k The kind of monster, SEEKER or CHASER
+     * @param tileX The X position of the tile
+     * @param tileY The Y position of the tile
+     * @return true if a monster of that kind is in the tile
+     */
+    public boolean isOccupied(byte k, int tileX, int tileY) {
+        return occupancy[k].isOccupied(tileX, tileY);
+    }
+
+    /**
+     * Adds a monster to the store.
+     * @param k The kind of monster, SEEKER or CHASER
+     * @param startX The starting X position of the monster
+     * @param startY The starting Y position of the monster
+     * @return The index of the new monster
+     */
+    public int add(byte k, int startX, int startY) {
+        if (size == x.length) {
+            int capacity = size * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            kind = Arrays.copyOf(kind, capacity);
+        }
+        x[size] = startX;
+        y[size] = startY;
+        kind[size] = k;
+        occupancy[k].add(startX, startY);
+        return size++;
+    }
+
+    /**
+     * Moves a monster to a new position.
+     * @param i The index of the monster
+     * @param newX The new X position
+     * @param newY The new Y position
+     */
+    public void move(int i, int newX, int newY) {
+        OccupancyIndex index = occupancy[kind[i]];
+        index.remove(x[i], y[i]);
+        index.add(newX, newY);
+        x[i] = newX;
+        y[i] = newY;
+    }
+
+    /**
+     * Removes a monster from the store. The last monster in the store takes
+     * the index of the removed one.
+     * @param i The index of the monster to remove
+     */
+    public void remove(int i) {
+        occupancy[kind[i]].remove(x[i], y[i]);
+        size--;
+        x[i] = x[size];
+        y[i] = y[size];
+        kind[i] = kind[size];
+    }
+
+    /**
+     * Removes every monster from the store, for example when a new level
+     * starts. The arrays are kept so that they can be reused.
+     */
+    public void clear() {
+        size = 0;
+        for (OccupancyIndex index : occupancy) {
+            index.clear();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package escapegame;
+
+import java.util.Arrays;
+
+/**
+ * The OccupancyIndex class counts how many entities are in each tile of a
+ * level, so that checking whether a tile is taken does not need to look at
+ * every entity. Entities that are tracked by an index update it themselves
+ * whenever their position changes. Positions outside the level are allowed
+ * but are not counted.
+ */
+public class OccupancyIndex {
+
+    /**
+     * The width and height of the level covered by this index.
+     */
+    private final int width;
+    private final int height;
+
+    /**
+     * The number of entities in each tile. The count for (x, y) is stored at
+     * index y * width + x.
+     */
+    private final char[] counts;
+
+    /**
+     * Creates an empty index for a level of the given size.
+     * @param width The width of the level in tiles
+     * @param height The height of the level in tiles
+     */
+    public OccupancyIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.counts = new char[width * height];
+    }
+
+    /**
+     * Checks whether any entity is in a tile.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     * @return true if at least one entity is in the tile, false if it is empty
+     * or outside the level
+     */
+    public boolean isOccupied(int x, int y) {
+        return contains(x, y) && counts[y * width + x] != 0;
+    }
+
+    /**
+     * Records an entity entering a tile.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     */
+    public void add(int x, int y) {
+        if (contains(x, y)) {
+            counts[y * width + x]++;
+        }
+    }
+
+    /**
+     * Records an entity leaving a tile.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     */
+    public void remove(int x, int y) {
+        if (contains(x, y)) {
+            counts[y * width + x]--;
+        }
+    }
+
+    /**
+     * Removes every entity from the index, for example when a new level starts.
+     */
+    public void clear() {
+        Arrays.fill(counts, (char) 0);
+    }
+
+    /**
+     * Checks whether a position is inside the level covered by this index.
+     */
+    private boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+}
@@ -0,0 +1,39 @@
+package escapegame;
+
+import java.awt.event.KeyEvent;
+import java.util.Random;
+
+/**
+ * An InputPolicy that presses a random arrow key every turn. It gives a
+ * baseline to compare smarter policies against.
+ */
+public class RandomPolicy implements InputPolicy {
+
+    /**
+     * The arrow keys that can be pressed.
+     */
+    private static final int[] KEYS = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_UP, KeyEvent.VK_DOWN};
+
+    /**
+     * Used to choose the keys.
+     */
+    private final Random rng;
+
+    /**
+     * Creates a policy whose keys come from the given seed.
+     * @param seed The seed for choosing keys
+     */
+    public RandomPolicy(long seed) {
+        this.rng = new Random(seed);
+    }
+
+    /**
+     * Returns a random arrow key.
+     * @param engine The engine running the game, which is not used
+     * @return the key code of an arrow key
+     */
+    @Override
+    public int nextKey(GameEngine engine) {
+        return KEYS[rng.nextInt(KEYS.length)];
+    }
+}
@@ -0,0 +1,38 @@
+package escapegame;
+
+/**
+ * An InputPolicy that presses a fixed list of keys in order, starting again
+ * from the first key once the list runs out. The keys could be typed in by
+ * hand or taken from a recorded game.
+ */
+public class ScriptedPolicy implements InputPolicy {
+
+    /**
+     * The keys to press, and the position of the next one.
+     */
+    private final int[] keys;
+    private int next = 0;
+
+    /**
+     * Creates a policy that presses the given keys.
+     * @param keys The key codes to press, which must not be empty
+     */
+    public ScriptedPolicy(int... keys) {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("A script needs at least one key");
+        }
+        this.keys = keys.clone();
+    }
+
+    /**
+     * Returns the next key of the script.
+     * @param engine The engine running the game, which is not used
+     * @return the key code of the next key in the script
+     */
+    @Override
+    public int nextKey(GameEngine engine) {
+        int key = keys[next];
+        next = (next + 1) % keys.length;
+        return key;
+    }
+}
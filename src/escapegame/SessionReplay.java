@@ -0,0 +1,116 @@
+package escapegame;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The SessionReplay class plays back an input log written by an
+ * InputRecorder. It creates a GameEngine with the seed and level size stored
+ * in the log and a HeadlessDisplay, then passes it every recorded key code as
+ * fast as possible. Because the engine's random choices all come from the
+ * seed, the replayed game is exactly the game that was recorded, which can be
+ * used to recreate bugs or to time the engine on a real game.
+ */
+public class SessionReplay {
+
+    /**
+     * The seed and level size read from the log header.
+     */
+    private final long seed;
+    private final int width;
+    private final int height;
+
+    /**
+     * The recorded key codes, in the order they were pressed.
+     */
+    private final int[] keys;
+
+    /**
+     * Reads an input log into memory.
+     * @param file The log file written by an InputRecorder
+     * @throws IOException if the file cannot be read or is not an input log
+     */
+    public SessionReplay(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != InputRecorder.MAGIC) {
+                throw new IOException(file + " is not an input log");
+            }
+            seed = in.readLong();
+            width = in.readInt();
+            height = in.readInt();
+            int[] read = new int[256];
+            int count = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                int value = 0;
+                int shift = 0;
+                while ((b & 0x80) != 0) {
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                    b = in.read();
+                    if (b == -1) {
+                        throw new EOFException(file + " ends part way through a key code");
+                    }
+                }
+                value |= b << shift;
+                if (count == read.length) {
+                    read = Arrays.copyOf(read, count * 2);
+                }
+                read[count++] = value;
+            }
+            keys = Arrays.copyOf(read, count);
+        }
+    }
+
+    /**
+     * Returns the number of key presses in the log.
+     * @return the number of recorded key codes
+     */
+    public int getKeyCount() {
+        return keys.length;
+    }
+
+    /**
+     * Creates a new engine for the recorded game, starts it and passes it
+     * every recorded key.
+     * @param display The display the engine should update
+     * @return the engine after the last key has been handled
+     */
+    public GameEngine replay(GameDisplay display) {
+        GameEngine engine = new GameEngine(display, width, height, seed);
+        engine.startGame();
+        for (int key : keys) {
+            engine.handleKey(key);
+        }
+        return engine;
+    }
+
+    /**
+     * Replays the input log given as the first argument without a window and
+     * prints how long it took.
+     * @param args the path of the input log
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: SessionReplay <input log>");
+            return;
+        }
+        try {
+            SessionReplay replay = new SessionReplay(new File(args[0]));
+            HeadlessDisplay display = new HeadlessDisplay();
+            long start = System.nanoTime();
+            replay.replay(display);
+            long elapsed = System.nanoTime() - start;
+            System.out.println("Replayed " + replay.getKeyCount() + " keys (" + display.getUpdates()
+                    + " frames) with seed " + replay.seed + " on a " + replay.width + "x" + replay.height
+                    + " level in " + elapsed / 1000000 + " ms");
+        } catch (IOException e) {
+            System.out.println("Could not replay " + args[0] + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package escapegame;
+
+import escapegame.GameEngine.TileType;
+
+import java.util.Random;
+
+/**
+ * The SpawnPool class holds the tiles of a level that monsters and items can
+ * be spawned on. Each tile is stored as a single int, y * width + x, in an
+ * array that is created once and refilled for every level. A tile is taken by
+ * picking a random entry and moving the last entry into its place, so taking a
+ * tile is quick however big the level is, and no tile can be taken twice.
+ */
+public class SpawnPool {
+
+    /**
+     * The width of the levels, used to pack and unpack tile positions.
+     */
+    private final int width;
+
+    /**
+     * The packed positions of the tiles that have not been taken yet. Only the
+     * first size entries are used.
+     */
+    private final int[] cells;
+    private int size;
+
+    /**
+     * Creates an empty pool for levels of the given size.
+     * @param width The width of the levels in tiles
+     * @param height The height of the levels in tiles
+     */
+    public SpawnPool(int width, int height) {
+        this.width = width;
+        this.cells = new int[width * height];
+    }
+
+    /**
+     * Empties the pool and fills it with every Grass, Dirt, Road and Nest tile
+     * of a level, in row order.
+     * @param tiles The tiles of the level, which must be the size of this pool
+     */
+    public void fill(TileGrid tiles) {
+        int grass = TileType.GRASS.ordinal();
+        int dirt = TileType.DIRT.ordinal();
+        int road = TileType.ROAD.ordinal();
+        int nest = TileType.NEST.ordinal();
+        size = 0;
+        for (int i = 0; i < cells.length; i++) {
+            int tile = tiles.getOrdinal(i);
+            if (tile == grass || tile == dirt || tile == road || tile == nest) {
+                cells[size++] = i;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tiles left in the pool.
+     * @return the number of tiles that can still be taken
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes a random tile from the pool and returns its packed position.
+     * @param rng The random number generator used to pick the tile
+     * @return the position of the tile as y * width + x
+     * @throws IllegalStateException if the pool is empty
+     */
+    public int take(Random rng) {
+        if (size == 0) {
+            throw new IllegalStateException("No spawn positions left");
+        }
+        int i = rng.nextInt(size);
+        int cell = cells[i];
+        cells[i] = cells[--size];
+        return cell;
+    }
+
+    /**
+     * Returns the X position of a packed tile position.
+     * @param cell A position returned by take
+     * @return the X position of the tile
+     */
+    public int getX(int cell) {
+        return cell % width;
+    }
+
+    /**
+     * Returns the Y position of a packed tile position.
+     * @param cell A position returned by take
+     * @return the Y position of the tile
+     */
+    public int getY(int cell) {
+        return cell / width;
+    }
+}
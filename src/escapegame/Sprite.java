@@ -0,0 +1,94 @@
+package escapegame;
+
+/**
+ * The images used by the game, and where each one is placed in the sprite
+ * atlas. Tiles and entities sit side by side along the top of the atlas in
+ * slots of one tile, and the two full screen overlays sit below them, one
+ * above the other. A sprite smaller than its slot, like the health pack, is
+ * placed in the top left corner of the slot with the rest left transparent,
+ * so it is drawn exactly as it was when loaded on its own.
+ */
+public enum Sprite {
+    CAR("car.png"),
+    CHASER("chaser.png"),
+    DIRT("dirt.png"),
+    FUEL("fuel.png"),
+    GRASS("grass.png"),
+    NEST("nest.png"),
+    ROAD("road.png"),
+    SEEKER("seeker.png"),
+    PLAYER("runner.png"),
+    WALL("wall.png"),
+    HEALTH("health.png"),
+    YOU_WIN("you-win.png"),
+    GAME_OVER("game-over.png");
+
+    /**
+     * The width and height of the full screen overlays.
+     */
+    public static final int OVERLAY_WIDTH = 816;
+    public static final int OVERLAY_HEIGHT = 615;
+
+    /**
+     * The width and height of the whole atlas.
+     */
+    public static final int ATLAS_WIDTH = Math.max(OVERLAY_WIDTH, YOU_WIN.ordinal() * GameGUI.TILE_WIDTH);
+    public static final int ATLAS_HEIGHT = GameGUI.TILE_HEIGHT + 2 * OVERLAY_HEIGHT;
+
+    /**
+     * The name of the image's file in the assets folder.
+     */
+    private final String file;
+
+    Sprite(String file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the name of the image's file in the assets folder.
+     * @return the file name
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Returns whether the sprite is a full screen overlay rather than a tile.
+     * @return true for YOU_WIN and GAME_OVER
+     */
+    public boolean isOverlay() {
+        return this == YOU_WIN || this == GAME_OVER;
+    }
+
+    /**
+     * Returns the X position of the sprite's slot in the atlas.
+     * @return the X position in pixels
+     */
+    public int getX() {
+        return isOverlay() ? 0 : ordinal() * GameGUI.TILE_WIDTH;
+    }
+
+    /**
+     * Returns the Y position of the sprite's slot in the atlas.
+     * @return the Y position in pixels
+     */
+    public int getY() {
+        return isOverlay() ? GameGUI.TILE_HEIGHT + (ordinal() - YOU_WIN.ordinal()) * OVERLAY_HEIGHT : 0;
+    }
+
+    /**
+     * Returns the width of the sprite's slot in the atlas.
+     * @return the width in pixels
+     */
+    public int getWidth() {
+        return isOverlay() ? OVERLAY_WIDTH : GameGUI.TILE_WIDTH;
+    }
+
+    /**
+     * Returns the height of the sprite's slot in the atlas.
+     * @return the height in pixels
+     */
+    public int getHeight() {
+        return isOverlay() ? OVERLAY_HEIGHT : GameGUI.TILE_HEIGHT;
+    }
+}
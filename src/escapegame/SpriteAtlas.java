@@ -0,0 +1,150 @@
+package escapegame;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The SpriteAtlas class holds every image used by the game packed into one
+ * image, laid out as described by Sprite. The atlas is read from atlas.png on
+ * the classpath with a single decode, so the game works however it is
+ * packaged and wherever it is started from. It is then converted once to the
+ * image format of the screen, so drawing it needs no conversion, and each
+ * sprite is a view into the converted atlas. The atlas is built by running
+ * the main method, which packs the files in the assets folder.
+ */
+public final class SpriteAtlas {
+
+    /**
+     * The name of the atlas on the classpath, next to this class.
+     */
+    public static final String RESOURCE = "atlas.png";
+
+    /**
+     * The loaded atlas, shared by every Canvas.
+     */
+    private static SpriteAtlas instance;
+
+    /**
+     * The atlas in the screen's format, and a view of it for each sprite.
+     */
+    private final BufferedImage atlas;
+    private final BufferedImage[] sprites = new BufferedImage[Sprite.values().length];
+
+    /**
+     * Converts a packed atlas and cuts it into sprites.
+     * @param packed The atlas as decoded
+     */
+    private SpriteAtlas(BufferedImage packed) {
+        atlas = toScreenFormat(packed);
+        for (Sprite sprite : Sprite.values()) {
+            sprites[sprite.ordinal()] = atlas.getSubimage(sprite.getX(), sprite.getY(), sprite.getWidth(), sprite.getHeight());
+        }
+    }
+
+    /**
+     * Returns the atlas, loading it the first time it is needed. If atlas.png
+     * is not on the classpath, for example when running straight from the
+     * source folder, the atlas is packed from the assets folder instead.
+     * @return the atlas
+     * @throws IOException if neither the atlas nor the asset files can be read
+     */
+    public static synchronized SpriteAtlas get() throws IOException {
+        if (instance == null) {
+            BufferedImage packed;
+            try (InputStream in = SpriteAtlas.class.getResourceAsStream(RESOURCE)) {
+                packed = in == null ? null : ImageIO.read(in);
+            }
+            if (packed == null) {
+                System.out.println(RESOURCE + " not found on the classpath, packing the assets folder instead");
+                packed = pack(new File("assets"));
+            }
+            instance = new SpriteAtlas(packed);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns one sprite. It shares its pixels with the atlas.
+     * @param sprite The sprite to return
+     * @return the image of the sprite
+     */
+    public BufferedImage getSprite(Sprite sprite) {
+        return sprites[sprite.ordinal()];
+    }
+
+    /**
+     * Returns the whole atlas in the screen's format.
+     * @return the atlas image
+     */
+    public BufferedImage getImage() {
+        return atlas;
+    }
+
+    /**
+     * Packs the image files of every sprite into an atlas.
+     * @param assets The folder holding the image files
+     * @return the packed atlas
+     * @throws IOException if a file cannot be read
+     */
+    public static BufferedImage pack(File assets) throws IOException {
+        BufferedImage packed = new BufferedImage(Sprite.ATLAS_WIDTH, Sprite.ATLAS_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = packed.createGraphics();
+        for (Sprite sprite : Sprite.values()) {
+            File file = new File(assets, sprite.getFile());
+            BufferedImage image = ImageIO.read(file);
+            if (image == null) {
+                throw new IOException("Unsupported image format: " + file);
+            }
+            if (image.getWidth() > sprite.getWidth() || image.getHeight() > sprite.getHeight()) {
+                throw new IOException(file + " is larger than its " + sprite.getWidth() + "x" + sprite.getHeight() + " slot");
+            }
+            g.drawImage(image, sprite.getX(), sprite.getY(), null);
+        }
+        g.dispose();
+        return packed;
+    }
+
+    /**
+     * Copies an image into a new image in the format the screen uses, so that
+     * it can be drawn without being converted. Without a screen the image is
+     * copied into a plain ARGB image.
+     * @param image The image to convert
+     * @return the converted image
+     */
+    private static BufferedImage toScreenFormat(BufferedImage image) {
+        BufferedImage converted;
+        if (GraphicsEnvironment.isHeadless()) {
+            converted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        } else {
+            converted = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration().createCompatibleImage(image.getWidth(), image.getHeight(), Transparency.TRANSLUCENT);
+        }
+        Graphics2D g = converted.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return converted;
+    }
+
+    /**
+     * Packs the assets folder into an atlas and writes it where the build
+     * picks it up, resources/escapegame/atlas.png. Must be run from the
+     * project folder after changing any of the images.
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        try {
+            File out = new File("resources/escapegame/" + RESOURCE);
+            out.getParentFile().mkdirs();
+            ImageIO.write(pack(new File("assets")), "png", out);
+            System.out.println("Wrote " + out);
+        } catch (IOException e) {
+            System.out.println("Could not build the atlas: " + e.getMessage());
+        }
+    }
+}
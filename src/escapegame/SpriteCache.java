@@ -0,0 +1,265 @@
+package escapegame;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * The SpriteCache class holds a copy of every sprite made for one screen, so
+ * that drawing the sprites can be done by the graphics card where the screen
+ * supports it. Sprites cut from the atlas share its pixels, and Java can only
+ * keep a copy of a whole image on the graphics card, not of part of one, so
+ * each sprite is copied into its own compatible image. Sprites with no
+ * partly transparent pixels are created as opaque or bitmask images, which
+ * even basic graphics cards can accelerate.
+ *
+ * When there is a screen each sprite is also copied into a VolatileImage,
+ * which is stored on the graphics card and is what the entities and overlays
+ * are drawn from. The contents of a VolatileImage can be lost at any time, for
+ * example when another program takes over the screen, so they are checked
+ * every time one is drawn and copied again from the compatible image if they
+ * were lost. Without a screen only the compatible images are made and are
+ * drawn directly.
+ */
+public final class SpriteCache {
+
+    /**
+     * The screen the sprites were made for, or null when there is no screen.
+     */
+    private final GraphicsConfiguration gc;
+
+    /**
+     * The compatible copy of each sprite, and the kind of transparency it has.
+     */
+    private final BufferedImage[] images = new BufferedImage[Sprite.values().length];
+    private final int[] transparency = new int[Sprite.values().length];
+
+    /**
+     * The copy of each sprite held on the graphics card, or null when there is
+     * no screen.
+     */
+    private final VolatileImage[] volatiles;
+
+    /**
+     * The number of times the contents of a VolatileImage were found lost and
+     * copied again.
+     */
+    private int restores;
+
+    /**
+     * Copies every sprite of an atlas for the given screen.
+     * @param atlas The atlas to copy the sprites from
+     * @param gc The screen the sprites will be drawn to, or null if there is
+     * no screen
+     */
+    public SpriteCache(SpriteAtlas atlas, GraphicsConfiguration gc) {
+        this.gc = gc;
+        this.volatiles = gc == null ? null : new VolatileImage[Sprite.values().length];
+        for (Sprite sprite : Sprite.values()) {
+            int i = sprite.ordinal();
+            BufferedImage source = atlas.getSprite(sprite);
+            transparency[i] = transparencyOf(source);
+            images[i] = copy(source, transparency[i]);
+            if (volatiles != null) {
+                volatiles[i] = createVolatile(sprite);
+            }
+        }
+    }
+
+    /**
+     * Returns the screen these sprites were made for.
+     * @return the graphics configuration, or null if there is no screen
+     */
+    public GraphicsConfiguration getGraphicsConfiguration() {
+        return gc;
+    }
+
+    /**
+     * Returns the compatible copy of a sprite. This is the image to use when
+     * drawing to another image rather than to the screen.
+     * @param sprite The sprite to return
+     * @return the image of the sprite
+     */
+    public BufferedImage getImage(Sprite sprite) {
+        return images[sprite.ordinal()];
+    }
+
+    /**
+     * Draws a sprite at its own size.
+     * @param g The graphics object to use for drawing
+     * @param sprite The sprite to draw
+     * @param x The X position in pixels to draw the sprite at
+     * @param y The Y position in pixels to draw the sprite at
+     */
+    public void draw(Graphics g, Sprite sprite, int x, int y) {
+        draw(g, sprite, x, y, sprite.getWidth(), sprite.getHeight());
+    }
+
+    /**
+     * Draws a sprite scaled to the given size. When the sprite has a copy on
+     * the graphics card, the copy is checked first and copied again if its
+     * contents were lost, and the sprite is drawn again if they were lost while
+     * it was being drawn.
+     * @param g The graphics object to use for drawing
+     * @param sprite The sprite to draw
+     * @param x The X position in pixels to draw the sprite at
+     * @param y The Y position in pixels to draw the sprite at
+     * @param width The width in pixels to draw the sprite at
+     * @param height The height in pixels to draw the sprite at
+     */
+    public void draw(Graphics g, Sprite sprite, int x, int y, int width, int height) {
+        int i = sprite.ordinal();
+        if (volatiles == null) {
+            g.drawImage(images[i], x, y, width, height, null);
+            return;
+        }
+        VolatileImage image = volatiles[i];
+        do {
+            int status = image.validate(gc);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                image.flush();
+                image = createVolatile(sprite);
+                volatiles[i] = image;
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                restore(image, sprite);
+                restores++;
+            }
+            g.drawImage(image, x, y, width, height, null);
+        } while (image.contentsLost());
+    }
+
+    /**
+     * Returns whether a sprite is currently held on the graphics card. A
+     * compatible image is only copied to the graphics card after it has been
+     * drawn a few times, so this can change while the game runs.
+     * @param sprite The sprite to check
+     * @return true if drawing the sprite is done by the graphics card
+     */
+    public boolean isAccelerated(Sprite sprite) {
+        int i = sprite.ordinal();
+        if (volatiles != null && volatiles[i].getCapabilities().isAccelerated()) {
+            return true;
+        }
+        return gc != null && images[i].getCapabilities(gc).isAccelerated();
+    }
+
+    /**
+     * Returns the number of times a sprite's copy on the graphics card had
+     * lost its contents and was copied again.
+     * @return the number of restores
+     */
+    public int getRestoreCount() {
+        return restores;
+    }
+
+    /**
+     * Builds a report listing each sprite, the kind of transparency it was
+     * stored with, and whether it is held on the graphics card.
+     * @return the report, one line per sprite
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(gc == null ? "Sprites (no screen)" : "Sprites for " + gc.getDevice().getIDstring()).append('\n');
+        int accelerated = 0;
+        for (Sprite sprite : Sprite.values()) {
+            boolean onCard = isAccelerated(sprite);
+            if (onCard) {
+                accelerated++;
+            }
+            report.append(String.format("  %-10s %-11s %s%n", sprite, transparencyName(transparency[sprite.ordinal()]),
+                    onCard ? "accelerated" : "not accelerated"));
+        }
+        report.append(String.format("  %d of %d accelerated, %d restores%n", accelerated, images.length, restores));
+        return report.toString();
+    }
+
+    /**
+     * Creates the graphics card copy of a sprite and copies the sprite into it.
+     * @param sprite The sprite to copy
+     * @return the new image
+     */
+    private VolatileImage createVolatile(Sprite sprite) {
+        int i = sprite.ordinal();
+        VolatileImage image = gc.createCompatibleVolatileImage(sprite.getWidth(), sprite.getHeight(), transparency[i]);
+        image.validate(gc);
+        restore(image, sprite);
+        return image;
+    }
+
+    /**
+     * Copies a sprite into its graphics card copy. Transparent images are
+     * cleared first as they may hold the lost contents.
+     * @param image The graphics card copy
+     * @param sprite The sprite to copy into it
+     */
+    private void restore(VolatileImage image, Sprite sprite) {
+        Graphics2D g = image.createGraphics();
+        if (image.getTransparency() != Transparency.OPAQUE) {
+            g.setComposite(AlphaComposite.Src);
+        }
+        g.drawImage(images[sprite.ordinal()], 0, 0, null);
+        g.dispose();
+    }
+
+    /**
+     * Copies a sprite into a new image with the given transparency, compatible
+     * with the screen if there is one.
+     * @param source The sprite to copy
+     * @param kind The transparency of the new image
+     * @return the copy
+     */
+    private BufferedImage copy(BufferedImage source, int kind) {
+        BufferedImage image;
+        if (gc != null) {
+            image = gc.createCompatibleImage(source.getWidth(), source.getHeight(), kind);
+        } else {
+            int type = kind == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+            image = new BufferedImage(source.getWidth(), source.getHeight(), type);
+        }
+        Graphics2D g = image.createGraphics();
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Works out the simplest kind of transparency that can hold an image.
+     * @param image The image to check
+     * @return OPAQUE if every pixel is solid, BITMASK if every pixel is either
+     * solid or fully transparent, otherwise TRANSLUCENT
+     */
+    private static int transparencyOf(BufferedImage image) {
+        int kind = Transparency.OPAQUE;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int alpha = image.getRGB(x, y) >>> 24;
+                if (alpha == 0) {
+                    kind = Transparency.BITMASK;
+                } else if (alpha != 255) {
+                    return Transparency.TRANSLUCENT;
+                }
+            }
+        }
+        return kind;
+    }
+
+    /**
+     * Returns a readable name for a kind of transparency.
+     * @param kind OPAQUE, BITMASK or TRANSLUCENT
+     * @return the name
+     */
+    private static String transparencyName(int kind) {
+        switch (kind) {
+            case Transparency.OPAQUE:
+                return "opaque";
+            case Transparency.BITMASK:
+                return "bitmask";
+            default:
+                return "translucent";
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package escapegame;
+
+import escapegame.GameEngine.TileType;
+
+/**
+ * The TileGrid class stores the tiles of a level in a single byte array, one
+ * byte per tile holding the ordinal of its TileType. Tiles are stored a row at
+ * a time, so tiles that are next to each other in a row are next to each other
+ * in memory. This uses a quarter of the memory of a 2D array of TileType
+ * references or less, which matters on very large levels.
+ *
+ * In a streaming world the grid is a window onto a larger TileSource, filled
+ * with loadFrom and written back with storeTo.
+ */
+public class TileGrid implements TileSource {
+
+    /**
+     * The TileType values indexed by ordinal, used to turn stored bytes back
+     * into tile types without creating a new array each time.
+     */
+    private static final TileType[] TYPES = TileType.values();
+
+    /**
+     * The width and height of the grid, measured in tiles.
+     */
+    private final int width;
+    private final int height;
+
+    /**
+     * The tiles of the grid. The tile at (x, y) is stored at index
+     * y * width + x.
+     */
+    private final byte[] cells;
+
+    /**
+     * A count of the changes made to the grid, used to tell whether a copy of
+     * the grid is still up to date.
+     */
+    private int version;
+
+    /**
+     * The smallest number of changes the change list holds before the oldest
+     * are forgotten. Larger grids keep more, up to one for every 64 tiles.
+     */
+    private static final int MIN_CHANGES = 1024;
+
+    /**
+     * The index of every tile changed since version changesFrom, in the order
+     * they were changed, so that a copy of the grid can be brought up to date
+     * by copying only those tiles. The list is null until trackChanges is
+     * called, and its oldest half is forgotten when it is full, so it never
+     * takes more than a small part of the grid's memory.
+     */
+    private int[] changes;
+    private int changesFrom;
+
+    /**
+     * Creates a grid of the given size. Every tile starts as the TileType with
+     * ordinal zero.
+     * @param width The width of the grid in tiles
+     * @param height The height of the grid in tiles
+     */
+    public TileGrid(int width, int height) {
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid too large: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.cells = new byte[width * height];
+    }
+
+    /**
+     * Returns the width of the grid.
+     * @return the width of the grid in tiles
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the grid.
+     * @return the height of the grid in tiles
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks whether a position is inside the grid.
+     * @param x The X position to check
+     * @param y The Y position to check
+     * @return true if the position is a tile of this grid
+     */
+    @Override
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Returns the type of the tile at a position.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     * @return The type of the tile
+     */
+    @Override
+    public TileType get(int x, int y) {
+        return TYPES[cells[y * width + x]];
+    }
+
+    /**
+     * Returns the ordinal of the type of the tile at a position. This avoids
+     * looking up the TileType in loops that only compare tiles.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     * @return The ordinal of the tile's TileType
+     */
+    public int getOrdinal(int x, int y) {
+        return cells[y * width + x];
+    }
+
+    /**
+     * Returns the ordinal of the type of a tile given its index in the grid,
+     * which is y * width + x. This lets code that walks the grid by index
+     * avoid working out the X and Y position of each tile.
+     * @param index The index of the tile
+     * @return The ordinal of the tile's TileType
+     */
+    public int getOrdinal(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Changes the type of the tile at a position.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     * @param type The new type of the tile
+     */
+    @Override
+    public void set(int x, int y, TileType type) {
+        int index = y * width + x;
+        cells[index] = (byte) type.ordinal();
+        if (changes != null) {
+            recordChange(index);
+        }
+        version++;
+    }
+
+    /**
+     * Adds a changed tile to the change list, making room for it first by
+     * growing the list or, once it has reached its largest size, by forgetting
+     * the oldest half of it.
+     * @param index The index of the tile that changed
+     */
+    private void recordChange(int index) {
+        int count = version - changesFrom;
+        if (count == changes.length) {
+            int limit = Math.max(MIN_CHANGES, cells.length >> 6);
+            if (changes.length < limit) {
+                changes = java.util.Arrays.copyOf(changes, Math.min(limit, changes.length * 2));
+            } else {
+                int kept = count / 2;
+                System.arraycopy(changes, count - kept, changes, 0, kept);
+                changesFrom += count - kept;
+                count = kept;
+            }
+        }
+        changes[count] = index;
+    }
+
+    /**
+     * Sets the type of the tile at an index without changing the version. It
+     * is used to fill a new grid from several threads at once, each setting
+     * different tiles, before the grid is used by anything else.
+     * @param index The index of the tile, y * width + x
+     * @param ordinal The ordinal of the tile's new TileType
+     */
+    void setOrdinal(int index, int ordinal) {
+        cells[index] = (byte) ordinal;
+    }
+
+    /**
+     * Returns a number that changes every time a tile of the grid is changed.
+     * @return the number of changes made to the grid
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Starts keeping a list of the tiles changed from now on, so that copies
+     * can be brought up to date with copyChangesTo. Does nothing if the list
+     * is already being kept.
+     */
+    void trackChanges() {
+        if (changes == null) {
+            changes = new int[16];
+            changesFrom = version;
+        }
+    }
+
+    /**
+     * Brings a copy of this grid up to date by copying only the tiles that
+     * have changed since the copy was made.
+     * @param copy A grid of the same size holding this grid's tiles as they
+     * were at version since
+     * @param since The version of this grid the copy was made or last brought
+     * up to date at
+     * @return true if the copy is now up to date, false if the changes since
+     * then are no longer all known and the whole grid has to be copied
+     */
+    boolean copyChangesTo(TileGrid copy, int since) {
+        if (changes == null || since < changesFrom || since > version) {
+            return false;
+        }
+        for (int i = since - changesFrom; i < version - changesFrom; i++) {
+            int index = changes[i];
+            copy.cells[index] = cells[index];
+        }
+        return true;
+    }
+
+    /**
+     * Copies every tile of this grid into another grid of the same size.
+     * @param copy The grid to copy the tiles into
+     */
+    void copyTo(TileGrid copy) {
+        System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+    }
+
+    /**
+     * Fills this grid with the tiles of a larger source, as a window onto it.
+     * The tiles are set without counting as changes, as the grid is expected
+     * to be new.
+     * @param source The tiles to read
+     * @param originX The X position in the source of this grid's top left tile
+     * @param originY The Y position in the source of this grid's top left tile
+     */
+    void loadFrom(TileSource source, int originX, int originY) {
+        for (int y = 0; y < height; y++) {
+            int index = y * width;
+            for (int x = 0; x < width; x++) {
+                cells[index++] = (byte) source.get(originX + x, originY + y).ordinal();
+            }
+        }
+    }
+
+    /**
+     * Writes the tiles of this grid back to the source it was loaded from.
+     * Only tiles that differ from the source are set, so parts of the source
+     * that were not changed are not marked as changed.
+     * @param target The tiles to write to
+     * @param originX The X position in the target of this grid's top left tile
+     * @param originY The Y position in the target of this grid's top left tile
+     */
+    void storeTo(TileSource target, int originX, int originY) {
+        for (int y = 0; y < height; y++) {
+            int index = y * width;
+            for (int x = 0; x < width; x++) {
+                TileType type = TYPES[cells[index++]];
+                if (target.get(originX + x, originY + y) != type) {
+                    target.set(originX + x, originY + y, type);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a copy of this grid with the same tiles.
+     * @return a new grid that can be changed without affecting this one
+     */
+    public TileGrid copy() {
+        TileGrid copy = new TileGrid(width, height);
+        System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+        return copy;
+    }
+}
@@ -0,0 +1,50 @@
+package escapegame;
+
+import escapegame.GameEngine.TileType;
+
+/**
+ * The TileSource interface is implemented by anything that holds a rectangle
+ * of tiles that can be read and changed one at a time. A TileGrid holds a
+ * whole level in memory, while a ChunkedWorld holds a world too big for memory
+ * and only keeps the parts of it that are in use. The engine plays on a
+ * TileGrid, and in a streaming world it fills that grid from a ChunkedWorld
+ * and writes it back through this interface.
+ */
+public interface TileSource {
+
+    /**
+     * Returns the width of the tiles held.
+     * @return the width in tiles
+     */
+    int getWidth();
+
+    /**
+     * Returns the height of the tiles held.
+     * @return the height in tiles
+     */
+    int getHeight();
+
+    /**
+     * Checks whether a position is inside the tiles held.
+     * @param x The X position
+     * @param y The Y position
+     * @return true if the position is inside
+     */
+    boolean contains(int x, int y);
+
+    /**
+     * Returns the type of a tile.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     * @return the type of the tile
+     */
+    TileType get(int x, int y);
+
+    /**
+     * Sets the type of a tile.
+     * @param x The X position of the tile
+     * @param y The Y position of the tile
+     * @param type The new type of the tile
+     */
+    void set(int x, int y, TileType type);
+}